@@ -0,0 +1,55 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+// Pre-rendered bevelled blocks, one image per colour at one pixel size.
+// Drawing a block is then a single blit instead of a fill and four lines.
+// The images are rebuilt only when the size or the target device changes,
+// i.e. when the window is resized or moved to a display with another scale.
+final class BlockSprites {
+    private final BufferedImage[] images = new BufferedImage[BrickGameTetris.COLORS.length];
+    private int size = -1;
+    private GraphicsConfiguration config;
+
+    BufferedImage get(Graphics2D g, int colorIdx, int size) {
+        GraphicsConfiguration target = g.getDeviceConfiguration();
+        if (size != this.size || target != config) {
+            rebuild(target, size);
+        }
+        return images[colorIdx];
+    }
+
+    private void rebuild(GraphicsConfiguration target, int size) {
+        this.size = size;
+        this.config = target;
+        // Bevel scales with the block: 1px at the original 25px size
+        int bevel = Math.max(1, Math.round(size / (float) BoardLayout.DESIGN_BLOCK));
+
+        for (int i = 1; i < images.length; i++) {
+            BufferedImage image = target != null
+                ? target.createCompatibleImage(size, size, Transparency.OPAQUE)
+                : new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                Color color = BrickGameTetris.COLORS[i];
+                g.setColor(color);
+                g.fillRect(0, 0, size, size);
+
+                // Highlight
+                g.setColor(color.brighter());
+                g.fillRect(0, 0, size, bevel);
+                g.fillRect(0, 0, bevel, size);
+
+                // Shadow
+                g.setColor(color.darker());
+                g.fillRect(size - bevel, 0, bevel, size);
+                g.fillRect(0, size - bevel, size, bevel);
+            } finally {
+                g.dispose();
+            }
+            images[i] = image;
+        }
+    }
+}
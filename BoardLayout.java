@@ -0,0 +1,85 @@
+import java.awt.Font;
+import java.util.HashMap;
+import java.util.Map;
+
+// Screen geometry for the current drawable area, in device pixels.
+//
+// The screen is designed once on the original 25px-block grid
+// (DESIGN_WIDTH x DESIGN_HEIGHT "design pixels") and mapped onto whatever
+// area the window offers at its display scale. The factor is rounded so a
+// block is always a whole number of device pixels, which keeps the board
+// crisp and lets block sprites be blitted without resampling.
+final class BoardLayout {
+    static final int DESIGN_BLOCK = 25;
+    static final int MARGIN = 10;
+    static final int SIDEBAR_WIDTH = 100;
+    static final int BOARD_WIDTH = TetrisCore.WIDTH * DESIGN_BLOCK;
+    static final int BOARD_HEIGHT = TetrisCore.HEIGHT * DESIGN_BLOCK;
+    static final int SIDEBAR_X = BOARD_WIDTH + 2 * MARGIN;
+    static final int DESIGN_WIDTH = SIDEBAR_X + SIDEBAR_WIDTH;
+    static final int DESIGN_HEIGHT = BOARD_HEIGHT + 2 * MARGIN;
+    static final int BOARD_CENTER_X = MARGIN + BOARD_WIDTH / 2;
+
+    private static final int MIN_BLOCK = 4;
+
+    private int areaX, areaY, areaWidth = -1, areaHeight = -1;
+    private final Map<Integer, Font> fonts = new HashMap<>();
+
+    int blockSize = DESIGN_BLOCK;
+    double unit = 1.0; // device pixels per design pixel
+    int originX, originY;
+
+    // Fits the design into the given device-pixel area, centred
+    void update(int x, int y, int width, int height) {
+        if (x == areaX && y == areaY && width == areaWidth && height == areaHeight) return;
+        areaX = x;
+        areaY = y;
+        areaWidth = width;
+        areaHeight = height;
+
+        double fit = Math.min(width / (double) DESIGN_WIDTH, height / (double) DESIGN_HEIGHT);
+        int newBlockSize = Math.max(MIN_BLOCK, (int) (fit * DESIGN_BLOCK));
+        if (newBlockSize != blockSize) {
+            fonts.clear();
+        }
+        blockSize = newBlockSize;
+        unit = blockSize / (double) DESIGN_BLOCK;
+        originX = x + (width - (int) Math.round(DESIGN_WIDTH * unit)) / 2;
+        originY = y + (height - (int) Math.round(DESIGN_HEIGHT * unit)) / 2;
+    }
+
+    int x(double designX) {
+        return originX + (int) Math.round(designX * unit);
+    }
+
+    int y(double designY) {
+        return originY + (int) Math.round(designY * unit);
+    }
+
+    // A design-pixel length in device pixels, never less than one
+    int scale(double designLength) {
+        return Math.max(1, (int) Math.round(designLength * unit));
+    }
+
+    int cellX(int column) {
+        return x(MARGIN) + column * blockSize;
+    }
+
+    int cellY(int row) {
+        return y(MARGIN) + row * blockSize;
+    }
+
+    int boardWidth() {
+        return TetrisCore.WIDTH * blockSize;
+    }
+
+    int boardHeight() {
+        return TetrisCore.HEIGHT * blockSize;
+    }
+
+    // Arial at a design point size, cached until the scale changes
+    Font font(int style, int designSize) {
+        return fonts.computeIfAbsent(style << 16 | designSize,
+            k -> new Font("Arial", style, scale(designSize)));
+    }
+}
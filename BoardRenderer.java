@@ -0,0 +1,348 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+// Draws the game screen into any Graphics2D: the window's back buffer, or an
+// offscreen image. The caller's transform is folded into a BoardLayout and
+// everything is then drawn in device pixels, so the screen stays sharp at any
+// window size or display scale and blocks are plain sprite blits rather
+// than scaled fills.
+class BoardRenderer {
+    static final Color BG_COLOR = new Color(220, 220, 220);
+    private static final Color GRID_COLOR = new Color(200, 200, 200);
+    private static final Color SIDEBAR_COLOR = new Color(240, 240, 240);
+    private static final Color TITLE_COLOR = new Color(180, 50, 180);
+    private static final Color OVERLAY_COLOR = new Color(0, 0, 0, 150);
+    private static final AffineTransform IDENTITY = new AffineTransform();
+
+    static final int MENU_LEADERBOARD_SIZE = 5;
+    private static final int ANIMATION_DURATION = 12000;
+
+    // Everything a frame shows; the owner fills it in before each render
+    static final class View {
+        final TetrisCore core;
+        BrickGameTetris.GameState state = BrickGameTetris.GameState.MENU;
+        GameMode selectedMode = GameMode.MARATHON;
+        boolean hasSavedGame;
+        ScoreStore scoreStore;
+        boolean animating;
+        int animationStep;
+        int rotationAngle;
+        // A read-only viewer shows no controls or key prompts; a message, if
+        // set, covers the board in place of the menu or game over screen
+        boolean spectator;
+        String message;
+
+        View(TetrisCore core) {
+            this.core = core;
+        }
+    }
+
+    final BoardLayout layout = new BoardLayout();
+    private final BlockSprites boardSprites = new BlockSprites();
+    private final BlockSprites previewSprites = new BlockSprites();
+
+    // Fills the area (in the caller's user space) with the screen for view
+    void render(Graphics2D g, int x, int y, int width, int height, View view) {
+        AffineTransform saved = g.getTransform();
+        double sx = saved.getScaleX();
+        double sy = saved.getScaleY();
+        int left = (int) Math.round(saved.getTranslateX() + x * sx);
+        int top = (int) Math.round(saved.getTranslateY() + y * sy);
+        int right = (int) Math.round(saved.getTranslateX() + (x + width) * sx);
+        int bottom = (int) Math.round(saved.getTranslateY() + (y + height) * sy);
+
+        g.setTransform(IDENTITY);
+        try {
+            layout.update(left, top, right - left, bottom - top);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            // Clear screen
+            g.setColor(BG_COLOR);
+            g.fillRect(left, top, right - left, bottom - top);
+
+            if (view.animating) {
+                drawAnimation(g, view);
+            } else {
+                drawGameContent(g, view);
+            }
+        } finally {
+            g.setTransform(saved);
+        }
+    }
+
+    private void drawGameContent(Graphics2D g, View view) {
+        TetrisCore core = view.core;
+        int line = layout.scale(1);
+        int boardX = layout.cellX(0);
+        int boardY = layout.cellY(0);
+        int boardW = layout.boardWidth();
+        int boardH = layout.boardHeight();
+
+        // Draw game border
+        g.setColor(Color.BLACK);
+        int border = layout.scale(BoardLayout.MARGIN / 2);
+        strokeRect(g, boardX - border, boardY - border, boardW + 2 * border, boardH + 2 * border, line);
+
+        // Draw grid background
+        g.setColor(Color.WHITE);
+        g.fillRect(boardX, boardY, boardW, boardH);
+
+        // Draw grid lines
+        g.setColor(GRID_COLOR);
+        for (int x = 0; x <= TetrisCore.WIDTH; x++) {
+            g.fillRect(layout.cellX(x), boardY, line, boardH + line);
+        }
+        for (int y = 0; y <= TetrisCore.HEIGHT; y++) {
+            g.fillRect(boardX, layout.cellY(y), boardW + line, line);
+        }
+
+        // Draw blocks
+        for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+            for (int x = 0; x < TetrisCore.WIDTH; x++) {
+                if (core.grid[y][x] != 0) {
+                    drawBlock(g, x, y, core.grid[y][x]);
+                }
+            }
+        }
+
+        // Draw current piece; a spectator's board already includes it
+        if (view.state == BrickGameTetris.GameState.PLAYING && core.currentPiece != null) {
+            int[][] piece = core.currentPiece;
+            for (int y = 0; y < piece.length; y++) {
+                for (int x = 0; x < piece[y].length; x++) {
+                    if (piece[y][x] != 0) {
+                        drawBlock(g, core.currentX + x, core.currentY + y, core.currentColor);
+                    }
+                }
+            }
+        }
+
+        drawSidebar(g, view);
+
+        // Draw menu/game over screens
+        if (view.message != null) {
+            drawMessage(g, view.message);
+        } else if (view.state == BrickGameTetris.GameState.MENU) {
+            drawMenu(g, view);
+        } else if (view.state == BrickGameTetris.GameState.GAME_OVER) {
+            drawGameOver(g, view);
+        }
+    }
+
+    private void drawBlock(Graphics2D g, int x, int y, int colorIdx) {
+        g.drawImage(boardSprites.get(g, colorIdx, layout.blockSize), layout.cellX(x), layout.cellY(y), null);
+    }
+
+    private void drawAnimation(Graphics2D g, View view) {
+        int size = layout.blockSize;
+        int width = TetrisCore.WIDTH;
+        int height = TetrisCore.HEIGHT;
+
+        // Calculate animation progress (0.0 to 1.0)
+        float progress = Math.min(1.0f, (float) view.animationStep * 30 / ANIMATION_DURATION);
+
+        // Draw grid of blocks expanding outward, each spinning about its centre
+        int maxDist = Math.max(width, height) / 2;
+        int currentDist = (int) (progress * maxDist);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int distance = Math.max(Math.abs(x - width / 2), Math.abs(y - height / 2));
+                if (distance <= currentDist) {
+                    int colorIdx = 1 + ((x + y + view.animationStep / 3) % (BrickGameTetris.COLORS.length - 1));
+                    BufferedImage sprite = boardSprites.get(g, colorIdx, size);
+                    g.translate(layout.cellX(x) + size / 2, layout.cellY(y) + size / 2);
+                    g.rotate(Math.toRadians(view.rotationAngle * (distance + 1) / 2));
+                    g.drawImage(sprite, -size / 2, -size / 2, null);
+                    g.setTransform(IDENTITY);
+                }
+            }
+        }
+
+        // Draw center piece that grows (0 to 4 blocks) and rotates
+        int centerSize = (int) (progress * 4);
+        if (centerSize > 0) {
+            int span = centerSize * size;
+            g.translate(layout.cellX(0) + layout.boardWidth() / 2 - span / 2,
+                layout.cellY(0) + layout.boardHeight() / 2 - span / 2);
+            g.rotate(Math.toRadians(view.rotationAngle), span / 2, span / 2);
+            g.setColor(BrickGameTetris.COLORS[7]); // Orange
+            g.fillRect(0, 0, span, span);
+            g.setTransform(IDENTITY);
+        }
+
+        // Draw "BRICK GAME" text that appears
+        int centerX = BoardLayout.DESIGN_WIDTH / 2;
+        if (progress > 0.3) {
+            float textAlpha = Math.min(1.0f, (progress - 0.3f) / 0.2f);
+            g.setColor(new Color(255, 255, 255, (int) (textAlpha * 255)));
+            g.setFont(layout.font(Font.BOLD, 24));
+            drawCenteredString(g, "BRICK GAME", centerX, BoardLayout.BOARD_HEIGHT / 3);
+        }
+
+        // Draw "TETRIS" text that appears later
+        if (progress > 0.6) {
+            float textAlpha = Math.min(1.0f, (progress - 0.6f) / 0.2f);
+            g.setColor(new Color(255, 255, 255, (int) (textAlpha * 255)));
+            g.setFont(layout.font(Font.BOLD, 36));
+            drawCenteredString(g, "TETRIS", centerX, BoardLayout.BOARD_HEIGHT * 2 / 3);
+        }
+    }
+
+    private void drawSidebar(Graphics2D g, View view) {
+        TetrisCore core = view.core;
+        int sidebarX = BoardLayout.SIDEBAR_X;
+        int textX = layout.x(sidebarX + 10);
+
+        // Sidebar background
+        g.setColor(SIDEBAR_COLOR);
+        g.fillRect(layout.x(sidebarX + 5), layout.y(BoardLayout.MARGIN),
+            layout.scale(BoardLayout.SIDEBAR_WIDTH - 10), layout.boardHeight());
+        g.setColor(Color.BLACK);
+        strokeRect(g, layout.x(sidebarX), layout.y(BoardLayout.MARGIN),
+            layout.scale(BoardLayout.SIDEBAR_WIDTH - 10), layout.boardHeight(), layout.scale(1));
+
+        // Game info
+        g.setFont(layout.font(Font.BOLD, 12));
+        g.setColor(TITLE_COLOR);
+        g.drawString("BRICK GAME", textX, layout.y(45));
+        g.drawString("9999-in-1", layout.x(sidebarX + 15), layout.y(55));
+
+        Color textColor = (core.nextPieceColor >= 1 && core.nextPieceColor < BrickGameTetris.COLORS.length)
+            ? BrickGameTetris.COLORS[core.nextPieceColor] : Color.BLACK;
+
+        // Next piece preview, at half block size
+        g.setColor(textColor);
+        g.drawString("NEXT:", textX, layout.y(80));
+        if (core.nextPiece != null) {
+            int previewSize = Math.max(1, layout.blockSize / 2);
+            int previewX = layout.x(sidebarX + BoardLayout.SIDEBAR_WIDTH / 2
+                - core.nextPiece[0].length * BoardLayout.DESIGN_BLOCK / 3.0);
+            int previewY = layout.y(110);
+            BufferedImage sprite = previewSprites.get(g, core.nextPieceColor, previewSize);
+            for (int y = 0; y < core.nextPiece.length; y++) {
+                for (int x = 0; x < core.nextPiece[y].length; x++) {
+                    if (core.nextPiece[y][x] != 0) {
+                        g.drawImage(sprite, previewX + x * previewSize, previewY + y * previewSize, null);
+                    }
+                }
+            }
+        }
+
+        // Score, level, speed (rows per frame) and lines removed
+        g.drawString("SCORE:", textX, layout.y(160));
+        g.drawString(String.valueOf(core.score), textX, layout.y(180));
+        g.drawString("LEVEL:", textX, layout.y(210));
+        g.drawString(String.valueOf(core.level), textX, layout.y(230));
+        g.drawString("SPEED:", textX, layout.y(260));
+        g.drawString(core.mode.gravity.label(core.level) + "G", textX, layout.y(280));
+        g.drawString("LINES:", textX, layout.y(310));
+        g.drawString(String.valueOf(core.linesCleared), textX, layout.y(330));
+
+        // Controls help
+        g.setFont(layout.font(Font.PLAIN, 10));
+        if (view.spectator) {
+            g.drawString("SPECTATING", textX, layout.y(370));
+            return;
+        }
+        g.drawString("CONTROLS:", textX, layout.y(370));
+        g.drawString("← → : Move", textX, layout.y(390));
+        g.drawString("↑ : Rotate", textX, layout.y(410));
+        g.drawString("↓ : Drop", textX, layout.y(430));
+        g.drawString("SPACE : Slam", textX, layout.y(450));
+        g.drawString("P : Pause", textX, layout.y(470));
+        if (core.mode.rewind) {
+            g.drawString("Z : Undo", textX, layout.y(490));
+        }
+    }
+
+    private void drawMenu(Graphics2D g, View view) {
+        int centerX = BoardLayout.BOARD_CENTER_X;
+        drawOverlay(g);
+
+        // Menu text
+        g.setColor(Color.WHITE);
+        g.setFont(layout.font(Font.BOLD, 24));
+        drawCenteredString(g, "BRICK GAME", centerX, 100);
+
+        g.setFont(layout.font(Font.BOLD, 16));
+        drawCenteredString(g, "9999-in-1", centerX, 130);
+        drawCenteredString(g, "TETRIS", centerX, 180);
+
+        g.setFont(layout.font(Font.PLAIN, 14));
+        drawCenteredString(g, "< " + view.selectedMode.label + " >", centerX, 205);
+        drawCenteredString(g, "Press ENTER to start", centerX, 250);
+        if (view.hasSavedGame) {
+            // The core still holds the saved game until a new one starts
+            drawCenteredString(g, "Press R to resume " + view.core.mode.label, centerX, 270);
+        }
+
+        drawLeaderboard(g, view, 310);
+    }
+
+    private void drawLeaderboard(Graphics2D g, View view, int y) {
+        if (view.scoreStore == null) return;
+        List<ScoreStore.GameRecord> top = view.scoreStore.leaderboard(view.selectedMode, 0, MENU_LEADERBOARD_SIZE);
+        if (top.isEmpty()) return;
+
+        int centerX = BoardLayout.BOARD_CENTER_X;
+        g.setFont(layout.font(Font.BOLD, 14));
+        drawCenteredString(g, "HIGH SCORES", centerX, y);
+
+        g.setFont(layout.font(Font.PLAIN, 12));
+        for (int i = 0; i < top.size(); i++) {
+            ScoreStore.GameRecord r = top.get(i);
+            drawCenteredString(g, (i + 1) + ".  " + r.score + "  L" + r.level, centerX, y + 25 + i * 20);
+        }
+    }
+
+    private void drawGameOver(Graphics2D g, View view) {
+        int centerX = BoardLayout.BOARD_CENTER_X;
+        drawOverlay(g);
+
+        // Game over text
+        g.setColor(Color.WHITE);
+        g.setFont(layout.font(Font.BOLD, 24));
+        drawCenteredString(g, "GAME OVER", centerX, 150);
+
+        g.setFont(layout.font(Font.PLAIN, 14));
+        drawCenteredString(g, "Score: " + view.core.score, centerX, 200);
+        if (view.spectator) return;
+        drawCenteredString(g, "Press ENTER for menu", centerX, 250);
+        if (view.core.mode.rewind) {
+            drawCenteredString(g, "Press Z to undo", centerX, 270);
+        }
+    }
+
+    private void drawMessage(Graphics2D g, String message) {
+        drawOverlay(g);
+        g.setColor(Color.WHITE);
+        g.setFont(layout.font(Font.BOLD, 16));
+        drawCenteredString(g, message, BoardLayout.BOARD_CENTER_X, BoardLayout.DESIGN_HEIGHT / 2);
+    }
+
+    // Semi-transparent overlay over the board
+    private void drawOverlay(Graphics2D g) {
+        g.setColor(OVERLAY_COLOR);
+        g.fillRect(layout.cellX(0), layout.cellY(0), layout.boardWidth(), layout.boardHeight());
+    }
+
+    // x and y are design coordinates
+    private void drawCenteredString(Graphics2D g, String text, int x, int y) {
+        FontMetrics fm = g.getFontMetrics();
+        g.drawString(text, layout.x(x) - fm.stringWidth(text) / 2, layout.y(y));
+    }
+
+    // Outline with the given line width, drawn inside the rectangle
+    private static void strokeRect(Graphics2D g, int x, int y, int width, int height, int line) {
+        g.fillRect(x, y, width, line);
+        g.fillRect(x, y + height - line, width, line);
+        g.fillRect(x, y, line, height);
+        g.fillRect(x + width - line, y, line, height);
+    }
+}
@@ -0,0 +1,206 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+// Wire format for spectator streams: a sequence of frames, each describing
+// the visible board (stack plus falling piece) and the sidebar numbers.
+//
+// Frame layout (big-endian):
+//   0  int   length of the rest of the frame
+//   4  byte  type: KEYFRAME or DIFF
+//   5  int   sequence number
+//   9  int   score
+//  13  int   level
+//  17  int   lines cleared
+//  21  byte  next piece type
+//  22  byte  next colour
+//  23  byte  game state: STATE_MENU, STATE_PLAYING or STATE_GAME_OVER
+//  24  byte  game mode id
+//  25  KEYFRAME: all cells, two per byte, row-major, high nibble first
+//      DIFF:     byte n, then n pairs of (byte cell index, byte colour)
+//
+// A viewer needs one keyframe to start; after that each diff only carries
+// the cells that changed since the previous frame.
+final class BoardStream {
+    static final byte KEYFRAME = 1;
+    static final byte DIFF = 2;
+
+    static final byte STATE_MENU = 0;
+    static final byte STATE_PLAYING = 1;
+    static final byte STATE_GAME_OVER = 2;
+
+    static final int CELLS = TetrisCore.WIDTH * TetrisCore.HEIGHT;
+    static final int HEADER_SIZE = 25;
+    static final int KEYFRAME_SIZE = HEADER_SIZE + CELLS / 2;
+    // A diff touching more cells than this is sent as a keyframe instead
+    private static final int MAX_DIFF_CELLS = (KEYFRAME_SIZE - HEADER_SIZE - 1) / 2;
+    static final int MAX_FRAME_SIZE = KEYFRAME_SIZE;
+
+    private BoardStream() {
+    }
+
+    // Tracks what viewers last saw and turns the next tick into a frame.
+    // Not thread-safe; owned by the game thread.
+    static final class Encoder {
+        private final byte[] sent = new byte[CELLS];
+        private final byte[] view = new byte[CELLS];
+        private int sentScore = -1, sentLevel, sentLines, sentNext, sentState = -1, sentMode = -1;
+        private int sequence;
+
+        // Writes a frame for the current state into out, starting at its
+        // position. Returns false, writing nothing, if nothing changed.
+        boolean encode(TetrisCore core, byte state, boolean forceKeyframe, ByteBuffer out) {
+            composeView(core, state == STATE_PLAYING);
+
+            int changed = 0;
+            for (int i = 0; i < CELLS; i++) {
+                if (view[i] != sent[i]) changed++;
+            }
+            int next = core.nextType << 8 | core.nextPieceColor;
+            boolean statsChanged = core.score != sentScore || core.level != sentLevel
+                || core.linesCleared != sentLines || next != sentNext || state != sentState
+                || core.mode.id != sentMode;
+            if (!forceKeyframe && changed == 0 && !statsChanged) return false;
+
+            boolean keyframe = forceKeyframe || changed > MAX_DIFF_CELLS;
+            int base = out.position();
+            out.put(base + 4, keyframe ? KEYFRAME : DIFF);
+            out.putInt(base + 5, sequence++);
+            out.putInt(base + 9, core.score);
+            out.putInt(base + 13, core.level);
+            out.putInt(base + 17, core.linesCleared);
+            out.put(base + 21, (byte) core.nextType);
+            out.put(base + 22, (byte) core.nextPieceColor);
+            out.put(base + 23, state);
+            out.put(base + 24, (byte) core.mode.id);
+
+            int pos = base + HEADER_SIZE;
+            if (keyframe) {
+                for (int i = 0; i < CELLS; i += 2) {
+                    out.put(pos++, (byte) (view[i] << 4 | view[i + 1]));
+                }
+            } else {
+                out.put(pos++, (byte) changed);
+                for (int i = 0; i < CELLS && changed > 0; i++) {
+                    if (view[i] != sent[i]) {
+                        out.put(pos++, (byte) i);
+                        out.put(pos++, view[i]);
+                        changed--;
+                    }
+                }
+            }
+            out.putInt(base, pos - base - 4);
+            out.position(pos);
+
+            System.arraycopy(view, 0, sent, 0, CELLS);
+            sentScore = core.score;
+            sentLevel = core.level;
+            sentLines = core.linesCleared;
+            sentNext = next;
+            sentState = state;
+            sentMode = core.mode.id;
+            return true;
+        }
+
+        private void composeView(TetrisCore core, boolean showPiece) {
+            for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+                int[] row = core.grid[y];
+                for (int x = 0; x < TetrisCore.WIDTH; x++) {
+                    view[y * TetrisCore.WIDTH + x] = (byte) row[x];
+                }
+            }
+            int[][] piece = core.currentPiece;
+            if (!showPiece || piece == null) return;
+            for (int y = 0; y < piece.length; y++) {
+                for (int x = 0; x < piece[y].length; x++) {
+                    int cy = core.currentY + y;
+                    int cx = core.currentX + x;
+                    if (piece[y][x] != 0 && cy >= 0 && cy < TetrisCore.HEIGHT && cx >= 0 && cx < TetrisCore.WIDTH) {
+                        view[cy * TetrisCore.WIDTH + cx] = (byte) core.currentColor;
+                    }
+                }
+            }
+        }
+    }
+
+    // Rebuilds the board on the viewer side
+    static final class Decoder {
+        final int[] cells = new int[CELLS];
+        int score, level, lines, nextType, nextColor;
+        byte state = STATE_MENU;
+        GameMode mode = GameMode.MARATHON;
+        boolean synced;
+
+        // Applies the frame at the buffer's position. Diffs are ignored
+        // until the first keyframe arrives. Viewers index colour and piece
+        // tables with what they decode, so a frame that is cut short, carries
+        // a colour above TetrisCore.COLOR_COUNT, or names an unknown piece or
+        // mode is rejected before anything changes.
+        void apply(ByteBuffer frame) throws IOException {
+            int base = frame.position();
+            byte type = frame.get(base + 4);
+            if (type == DIFF && !synced) return;
+
+            int next = frame.get(base + 21);
+            if (next < 0 || next >= TetrisCore.ROTATIONS.length) {
+                throw new IOException("Bad piece " + next);
+            }
+            checkColor(frame.get(base + 22) & 0xFF);
+            GameMode frameMode = GameMode.byId(frame.get(base + 24));
+            if (frameMode == null) {
+                throw new IOException("Bad mode " + frame.get(base + 24));
+            }
+
+            int pos = base + HEADER_SIZE;
+            if (type == KEYFRAME) {
+                if (pos + CELLS / 2 > frame.limit()) {
+                    throw new IOException("Short keyframe");
+                }
+                for (int i = 0; i < CELLS / 2; i++) {
+                    int packed = frame.get(pos + i);
+                    checkColor((packed >> 4) & 0x0F);
+                    checkColor(packed & 0x0F);
+                }
+            } else {
+                int n = pos < frame.limit() ? frame.get(pos) & 0xFF : -1;
+                if (n < 0 || pos + 1 + 2 * n > frame.limit()) {
+                    throw new IOException("Short diff");
+                }
+                for (int k = 0; k < n; k++) {
+                    checkColor(frame.get(pos + 2 + 2 * k) & 0xFF);
+                }
+            }
+
+            score = frame.getInt(base + 9);
+            level = frame.getInt(base + 13);
+            lines = frame.getInt(base + 17);
+            nextType = frame.get(base + 21);
+            nextColor = frame.get(base + 22);
+            state = frame.get(base + 23);
+            mode = frameMode;
+
+            if (type == KEYFRAME) {
+                for (int i = 0; i < CELLS; i += 2) {
+                    int packed = frame.get(pos++);
+                    cells[i] = (packed >> 4) & 0x0F;
+                    cells[i + 1] = packed & 0x0F;
+                }
+                synced = true;
+            } else {
+                int n = frame.get(pos++) & 0xFF;
+                for (int k = 0; k < n; k++) {
+                    int index = frame.get(pos++) & 0xFF;
+                    int color = frame.get(pos++);
+                    if (index < CELLS) {
+                        cells[index] = color;
+                    }
+                }
+            }
+        }
+
+        private static void checkColor(int color) throws IOException {
+            if (color > TetrisCore.COLOR_COUNT) {
+                throw new IOException("Bad colour " + color);
+            }
+        }
+    }
+}
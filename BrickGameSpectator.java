@@ -0,0 +1,132 @@
+import javax.swing.*;
+import java.awt.*;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+// Read-only viewer for a game started with --broadcast.
+// Usage: java BrickGameSpectator [host] [port]
+public class BrickGameSpectator extends JFrame {
+    private static final long serialVersionUID = 1L;
+
+    private static final int RETRY_DELAY = 1000;
+
+    private final InetSocketAddress address;
+    private final BoardStream.Decoder decoder = new BoardStream.Decoder();
+    private volatile boolean connected = false;
+
+    // Drawn exactly like the game, scaled to whatever size the window is
+    private final BoardRenderer renderer = new BoardRenderer();
+    private final BoardRenderer.View view = new BoardRenderer.View(new TetrisCore());
+
+    public BrickGameSpectator(InetSocketAddress address) {
+        this.address = address;
+        setTitle("BRICK GAME 9999-in-1 - SPECTATOR");
+        setDefaultCloseOperation(EXIT_ON_CLOSE);
+
+        JPanel board = new JPanel() {
+            @Override
+            protected void paintComponent(Graphics g) {
+                synchronized (decoder) {
+                    fillView(decoder, connected, view);
+                }
+                renderer.render((Graphics2D) g, 0, 0, getWidth(), getHeight(), view);
+            }
+        };
+        board.setPreferredSize(new Dimension(BoardLayout.DESIGN_WIDTH, BoardLayout.DESIGN_HEIGHT));
+        board.setBackground(BoardRenderer.BG_COLOR);
+        add(board);
+        pack();
+    }
+
+    private void receive() {
+        ByteBuffer frame = ByteBuffer.allocate(BoardStream.MAX_FRAME_SIZE);
+        while (true) {
+            try (SocketChannel channel = SocketChannel.open(address)) {
+                connected = true;
+                while (true) {
+                    frame.clear().limit(4);
+                    readFully(channel, frame);
+                    int length = frame.getInt(0);
+                    if (length < BoardStream.HEADER_SIZE - 4 || length > frame.capacity() - 4) {
+                        throw new IOException("Bad frame length " + length);
+                    }
+                    frame.limit(4 + length);
+                    readFully(channel, frame);
+                    frame.position(0);
+                    synchronized (decoder) {
+                        decoder.apply(frame);
+                    }
+                    repaint();
+                }
+            } catch (IOException e) {
+                connected = false;
+                synchronized (decoder) {
+                    decoder.synced = false;
+                }
+                repaint();
+            }
+            try {
+                Thread.sleep(RETRY_DELAY);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) throw new EOFException();
+        }
+    }
+
+    // Copies the decoded stream into a render view; hold the decoder's lock
+    static void fillView(BoardStream.Decoder decoder, boolean connected, BoardRenderer.View view) {
+        view.spectator = true;
+        if (!decoder.synced) {
+            view.state = BrickGameTetris.GameState.MENU;
+            view.message = connected ? "WAITING..." : "CONNECTING...";
+            return;
+        }
+
+        TetrisCore core = view.core;
+        for (int i = 0; i < BoardStream.CELLS; i++) {
+            core.grid[i / TetrisCore.WIDTH][i % TetrisCore.WIDTH] = decoder.cells[i];
+        }
+        core.currentPiece = null; // already part of the cells
+        core.mode = decoder.mode;
+        core.score = decoder.score;
+        core.level = decoder.level;
+        core.linesCleared = decoder.lines;
+        if (decoder.nextColor != 0) {
+            core.setNext(decoder.nextType, decoder.nextColor);
+        } else {
+            core.nextPiece = null; // no game has been dealt yet
+        }
+
+        view.message = null;
+        if (decoder.state == BoardStream.STATE_PLAYING) {
+            view.state = BrickGameTetris.GameState.PLAYING;
+        } else if (decoder.state == BoardStream.STATE_GAME_OVER) {
+            view.state = BrickGameTetris.GameState.GAME_OVER;
+        } else {
+            view.state = BrickGameTetris.GameState.MENU;
+            view.message = "IN MENU";
+        }
+    }
+
+    public static void main(String[] args) {
+        String host = args.length > 0 ? args[0] : "127.0.0.1";
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : BroadcastServer.DEFAULT_PORT;
+        SwingUtilities.invokeLater(() -> {
+            BrickGameSpectator spectator = new BrickGameSpectator(new InetSocketAddress(host, port));
+            spectator.setVisible(true);
+
+            Thread reader = new Thread(spectator::receive, "spectator");
+            reader.setDaemon(true);
+            reader.start();
+        });
+    }
+}
@@ -2,35 +2,32 @@ import javax.sound.sampled.*;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferStrategy;
-import java.util.Random;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class BrickGameTetris extends JFrame {
-    // Game constants
-    private static final int WIDTH = 10;
-    private static final int HEIGHT = 20;
-    private static final int BLOCK_SIZE = 25;
-    private static final int SIDEBAR_WIDTH = 100;
-
     // Game states
-    private enum GameState { MENU, PLAYING, GAME_OVER }
+    enum GameState { MENU, PLAYING, GAME_OVER }
     private GameState gameState = GameState.MENU;
 
     // Game variables
-    private int[][] grid = new int[HEIGHT][WIDTH];
-    private int[][] currentPiece;
-    private int currentX, currentY, currentColor;
-    private int score = 0;
-    private int level = 1;
-    private int linesCleared = 0;
-    private int gameSpeed = 500; // Initial speed (ms)
+    private final TetrisCore core = new TetrisCore();
+    private GameMode gameMode = GameMode.MARATHON;
+    private long gameStartTime;
 
     // Brick Game styling
-    private final Color BG_COLOR = new Color(220, 220, 220);
-    private final Color[] COLORS = {
+    static final Color[] COLORS = {
         Color.BLACK,        // 0 - empty
         new Color(255, 50, 50),   // 1 - Red
         new Color(50, 50, 255),   // 2 - Blue
@@ -41,18 +38,11 @@ public class BrickGameTetris extends JFrame {
         new Color(255, 150, 50)   // 7 - Orange
     };
 
-    private final int[][][] TETROMINOS = {
-        {{1, 1, 1, 1}}, // I
-        {{1, 1}, {1, 1}}, // O
-        {{1, 1, 1}, {0, 1, 0}}, // T
-        {{1, 1, 1}, {1, 0, 0}}, // L
-        {{1, 1, 1}, {0, 0, 1}}, // J
-        {{1, 1, 0}, {0, 1, 1}}, // Z
-        {{0, 1, 1}, {1, 1, 0}}  // S
-    };
-
     private Timer gameTimer;
-    private Random random = new Random();
+    // The loop only samples the clock; gravity is computed from elapsed
+    // nanoseconds, so this sets input/render latency, not game speed
+    private static final int GAME_LOOP_INTERVAL = 4;
+    private long lastUpdateNanos;
 
     // Sound variables
     private Clip moveSound;
@@ -82,22 +72,49 @@ public class BrickGameTetris extends JFrame {
     private boolean isAnimating = false;
     private int animationStep = 0;
     private int rotationAngle = 0;
-    private final int ANIMATION_DURATION = 12000;
 
-    //Variable to track the next piece
-    private int[][] nextPiece;
-    private int nextPieceColor;
+    // Rendering
+    private final BoardRenderer renderer = new BoardRenderer();
+    private final BoardRenderer.View view = new BoardRenderer.View(core);
+
+    // High scores and statistics
+    private ScoreStore scoreStore;
+
+    // Autosave and resume
+    private static final Path AUTOSAVE_PATH = Paths.get(System.getProperty("user.home"), ".brickgame", "autosave.bin");
+    private static final int AUTOSAVE_INTERVAL = 5000;
+    private final ByteBuffer snapshotBuffer = ByteBuffer.allocate(GameSnapshot.SIZE);
+    private final ExecutorService saveExecutor = Executors.newSingleThreadExecutor();
+    private Timer autosaveTimer;
+    private boolean hasSavedGame = false;
+
+    // Practice mode undo
+    private static final int REWIND_CAPACITY = 2048;
+    private final RewindBuffer rewindBuffer = new RewindBuffer(REWIND_CAPACITY);
+
+    // Spectator broadcast (--broadcast[=port])
+    private static final int BROADCAST_INTERVAL = 16;
+    private BroadcastServer broadcastServer;
 
     public BrickGameTetris() {
         setTitle("BRICK GAME 9999-in-1 - TETRIS");
-        setSize(WIDTH * BLOCK_SIZE + SIDEBAR_WIDTH + 16, HEIGHT * BLOCK_SIZE + 39);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
-        setResizable(false);
+        setResizable(true);
         setIgnoreRepaint(true);
 
+        // Opens at the classic 25px-block size; the layout scales from there
+        getContentPane().setPreferredSize(new Dimension(BoardLayout.DESIGN_WIDTH, BoardLayout.DESIGN_HEIGHT));
+        pack();
+        setMinimumSize(new Dimension(getWidth() / 2, getHeight() / 2));
+
         setupGame();
         setupControls();
         initSounds();
+        initScoreStore();
+        loadAutosave();
+
+        autosaveTimer = new Timer(AUTOSAVE_INTERVAL, e -> autosave());
+        autosaveTimer.start();
     }
 
     @Override
@@ -107,21 +124,8 @@ public class BrickGameTetris extends JFrame {
     }
 
     private void setupGame() {
-        for (int y = 0; y < HEIGHT; y++) {
-            for (int x = 0; x < WIDTH; x++) {
-                grid[y][x] = 0;
-            }
-        }
-        score = 0;
-        linesCleared = 0;
-        level = 1;
-        gameSpeed = 500;
-        generateNextPiece(); // Initialize the first next piece
-    }
-
-    private void generateNextPiece() {
-        nextPiece = TETROMINOS[random.nextInt(TETROMINOS.length)];
-        nextPieceColor = 1 + random.nextInt(COLORS.length - 1);
+        // Seed per game so every recorded game can be replayed
+        core.reset(gameMode, System.nanoTime());
     }
 
     private void setupControls() {
@@ -139,11 +143,25 @@ public class BrickGameTetris extends JFrame {
                         if (e.getKeyCode() == KeyEvent.VK_ENTER) {
                             gameState = GameState.MENU;
                             repaint();
+                        } else if (e.getKeyCode() == KeyEvent.VK_Z) {
+                            undoPlacement(0); // Take back the placement that ended the game
+                            repaint();
                         }
                         break;
                 }
             }
         });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                // Runs before EXIT_ON_CLOSE, so queued saves and scores still get flushed
+                autosave();
+                finishSaves();
+                if (scoreStore != null) {
+                    scoreStore.close();
+                }
+            }
+        });
     }
 
     private void initSounds() {
@@ -164,6 +182,92 @@ public class BrickGameTetris extends JFrame {
         }
     }
 
+    private void initScoreStore() {
+        try {
+            scoreStore = ScoreStore.open(Paths.get(System.getProperty("user.home"), ".brickgame", "scores.log"));
+        } catch (IOException e) {
+            System.out.println("Score log unavailable - high scores disabled");
+            scoreStore = null;
+        }
+    }
+
+    private void loadAutosave() {
+        try {
+            hasSavedGame = GameSnapshot.loadFile(AUTOSAVE_PATH, core);
+        } catch (IOException e) {
+            hasSavedGame = false;
+        }
+        if (hasSavedGame) {
+            gameMode = core.mode;
+        }
+    }
+
+    // Captures the game on the calling thread and writes it in the background
+    private void autosave() {
+        if (gameState != GameState.PLAYING || saveExecutor.isShutdown()) return;
+        byte[] data = captureSnapshot();
+        saveExecutor.execute(() -> {
+            try {
+                GameSnapshot.saveFile(AUTOSAVE_PATH, data);
+            } catch (IOException e) {
+                System.err.println("Autosave error: " + e.getMessage());
+            }
+        });
+    }
+
+    // Waits for queued saves and deletes. All save I/O goes through
+    // saveExecutor so it shares one temp file and runs in the order queued.
+    private void finishSaves() {
+        saveExecutor.shutdown();
+        try {
+            if (!saveExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                System.err.println("Autosave error: timed out saving on exit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] captureSnapshot() {
+        core.playTimeMs = System.currentTimeMillis() - gameStartTime;
+        snapshotBuffer.clear();
+        GameSnapshot.write(core, snapshotBuffer);
+        return Arrays.copyOf(snapshotBuffer.array(), GameSnapshot.SIZE);
+    }
+
+    private void deleteAutosave() {
+        hasSavedGame = false;
+        saveExecutor.execute(() -> {
+            try {
+                Files.deleteIfExists(AUTOSAVE_PATH);
+            } catch (IOException e) {
+                System.err.println("Autosave error: " + e.getMessage());
+            }
+        });
+    }
+
+    private void startBroadcast(int port) {
+        try {
+            broadcastServer = BroadcastServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            System.out.println("Broadcasting on port " + broadcastServer.port());
+        } catch (IOException e) {
+            System.out.println("Broadcast unavailable: " + e.getMessage());
+            return;
+        }
+        new Timer(BROADCAST_INTERVAL, e -> broadcastServer.publish(core, broadcastState())).start();
+    }
+
+    private byte broadcastState() {
+        switch (gameState) {
+            case PLAYING:
+                return BoardStream.STATE_PLAYING;
+            case GAME_OVER:
+                return BoardStream.STATE_GAME_OVER;
+            default:
+                return BoardStream.STATE_MENU;
+        }
+    }
+
     private Clip loadSound(String path) throws Exception {
         AudioInputStream audio = AudioSystem.getAudioInputStream(getClass().getResourceAsStream(path));
         Clip clip = AudioSystem.getClip();
@@ -180,17 +284,13 @@ public class BrickGameTetris extends JFrame {
         }
 
         do {
-            Graphics graphics = strategy.getDrawGraphics();
+            Graphics2D graphics = (Graphics2D) strategy.getDrawGraphics();
             try {
-                // Clear screen
-                graphics.setColor(BG_COLOR);
-                graphics.fillRect(0, 0, getWidth(), getHeight());
-
-                if (isAnimating) {
-                    drawAnimation(graphics);
-                } else {
-                    drawGameContent(graphics);
-                }
+                updateView();
+                Insets insets = getInsets();
+                renderer.render(graphics, insets.left, insets.top,
+                    getWidth() - insets.left - insets.right,
+                    getHeight() - insets.top - insets.bottom, view);
             } finally {
                 graphics.dispose();
             }
@@ -198,53 +298,14 @@ public class BrickGameTetris extends JFrame {
         } while (strategy.contentsLost());
     }
 
-    private void drawGameContent(Graphics g) {
-        // Draw game border
-        g.setColor(Color.BLACK);
-        g.drawRect(5, 5, WIDTH * BLOCK_SIZE + 10, HEIGHT * BLOCK_SIZE + 10);
-        
-        // Draw grid background
-        g.setColor(Color.WHITE);
-        g.fillRect(10, 10, WIDTH * BLOCK_SIZE, HEIGHT * BLOCK_SIZE);
-        
-        // Draw grid lines
-        g.setColor(new Color(200, 200, 200));
-        for (int x = 0; x <= WIDTH; x++) {
-            g.drawLine(10 + x * BLOCK_SIZE, 10, 10 + x * BLOCK_SIZE, 10 + HEIGHT * BLOCK_SIZE);
-        }
-        for (int y = 0; y <= HEIGHT; y++) {
-            g.drawLine(10, 10 + y * BLOCK_SIZE, 10 + WIDTH * BLOCK_SIZE, 10 + y * BLOCK_SIZE);
-        }
-        
-        // Draw blocks
-        for (int y = 0; y < HEIGHT; y++) {
-            for (int x = 0; x < WIDTH; x++) {
-                if (grid[y][x] != 0) {
-                    drawBlock(g, x, y, grid[y][x]);
-                }
-            }
-        }
-        
-        // Draw current piece
-        if (gameState == GameState.PLAYING) {
-            for (int y = 0; y < currentPiece.length; y++) {
-                for (int x = 0; x < currentPiece[y].length; x++) {
-                    if (currentPiece[y][x] != 0) {
-                        drawBlock(g, currentX + x, currentY + y, currentColor);
-                    }
-                }
-            }
-        }
-        
-        // Draw sidebar
-        drawSidebar(g);
-        
-        // Draw menu/game over screens
-        if (gameState == GameState.MENU) {
-            drawMenu(g);
-        } else if (gameState == GameState.GAME_OVER) {
-            drawGameOver(g);
-        }
+    private void updateView() {
+        view.state = gameState;
+        view.selectedMode = gameMode;
+        view.hasSavedGame = hasSavedGame;
+        view.scoreStore = scoreStore;
+        view.animating = isAnimating;
+        view.animationStep = animationStep;
+        view.rotationAngle = rotationAngle;
     }
 
     private synchronized void playSoundWithPriorityDelay(Clip clip, int duration, int priority) {
@@ -279,14 +340,47 @@ public class BrickGameTetris extends JFrame {
         gameState = GameState.PLAYING;
         isGameActive = true;
         allowMoveSounds = true;
-        
+        gameStartTime = System.currentTimeMillis();
+
         setupGame();
+        rewindBuffer.clear();
+        if (hasSavedGame) {
+            deleteAutosave(); // A new game, in any mode, replaces the saved one
+        }
         
         if (gameTimer != null) {
             gameTimer.stop();
         }
-        gameTimer = new Timer(gameSpeed, e -> gameUpdate());
+        gameTimer = new Timer(GAME_LOOP_INTERVAL, e -> gameUpdate());
         newPiece();
+        startGameLoop();
+    }
+
+    // Picks up the autosaved game exactly where it was left, skipping the intro
+    private void resumeGame() {
+        if (isAnimating || !hasSavedGame) return;
+
+        hasSavedGame = false;
+        gameState = GameState.PLAYING;
+        isGameActive = true;
+        allowMoveSounds = true;
+        gameStartTime = System.currentTimeMillis() - core.playTimeMs;
+
+        if (gameTimer != null) {
+            gameTimer.stop();
+        }
+        gameTimer = new Timer(GAME_LOOP_INTERVAL, e -> gameUpdate());
+        rewindBuffer.clear();
+        if (core.currentPiece == null) {
+            newPiece();
+        } else if (core.mode.rewind) {
+            rewindBuffer.push(core);
+        }
+        startGameLoop();
+    }
+
+    private void startGameLoop() {
+        lastUpdateNanos = System.nanoTime();
         gameTimer.start();
     }
 
@@ -364,6 +458,15 @@ public class BrickGameTetris extends JFrame {
     private void handleMenuInput(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_ENTER) {
             playGameStartSound(); // No callback needed now
+        } else if (e.getKeyCode() == KeyEvent.VK_R) {
+            resumeGame();
+            repaint();
+        } else if (e.getKeyCode() == KeyEvent.VK_LEFT) {
+            gameMode = gameMode.previous();
+            repaint();
+        } else if (e.getKeyCode() == KeyEvent.VK_RIGHT) {
+            gameMode = gameMode.next();
+            repaint();
         }
     }
 
@@ -379,18 +482,22 @@ public class BrickGameTetris extends JFrame {
                 boolean moved = moveDown();
                 if (!moved || !moveDown()) { // Try to move down twice
                     if (!moved) {  // If first move failed, just merge
-                        mergePiece();
-                        clearLines();
-                        newPiece();
+                        lockPiece();
                     }
                 }
                 break;
+            case KeyEvent.VK_SPACE:
+                hardDrop();
+                break;
             case KeyEvent.VK_UP:
                 rotate();
                 break;
             case KeyEvent.VK_P:
                 togglePause();
                 break;
+            case KeyEvent.VK_Z:
+                undoPlacement(1);
+                break;
         }
         repaint();
     }
@@ -399,33 +506,34 @@ private void togglePause() {
         if (gameTimer.isRunning()) {
             gameTimer.stop();
         } else {
-            gameTimer.start();
+            startGameLoop();
         }
     }
 
+    // Gravity and lock delay always get the real elapsed time; sounds only
+    // decide among themselves what plays, never how fast the game runs
     private void gameUpdate() {
-        long currentTime = System.currentTimeMillis();
+        long now = System.nanoTime();
+        long elapsed = now - lastUpdateNanos;
+        lastUpdateNanos = now;
 
-        // Don't process game update if important sound is playing
-        if (currentTime < lastSoundEndTime - 100) { // 100ms buffer
-            return;
+        int result = core.advance(elapsed);
+        if ((result & TetrisCore.FELL) != 0 && allowMoveSounds) {
+            playMoveSound();
         }
-        if (!moveDown()) {
-            mergePiece();
-            clearLines();
-            newPiece();
+        if ((result & TetrisCore.LOCK) != 0) {
+            lockPiece();
+        }
+        if (result != 0) {
+            repaint();
         }
-        repaint();
     }
 
     private void newPiece() {
-        currentPiece = nextPiece;
-        currentColor = nextPieceColor;
-        currentX = WIDTH / 2 - currentPiece[0].length / 2;
-        currentY = 0;
-
-         // Generate new preview piece
-        generateNextPiece();
+        boolean spawned = core.newPiece();
+        if (spawned && core.mode.rewind) {
+            rewindBuffer.push(core);
+        }
 
         // Only play move sound if game is fully active
         if (isGameActive && allowMoveSounds) {
@@ -433,35 +541,13 @@ private void togglePause() {
             playMoveSound();
         }
 
-        if (collision()) {
+        if (!spawned) {
             gameOver();
         }
     }
 
-    private boolean collision() {
-        for (int y = 0; y < currentPiece.length; y++) {
-            for (int x = 0; x < currentPiece[y].length; x++) {
-                if (currentPiece[y][x] != 0) {
-                    int newX = currentX + x;
-                    int newY = currentY + y;
-
-                    if (newX < 0 || newX >= WIDTH || newY >= HEIGHT) {
-                        return true;
-                    }
-
-                    if (newY >= 0 && grid[newY][newX] != 0) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
-    }
-
     private boolean moveDown() {
-        currentY++;
-        if (collision()) {
-            currentY--;
+        if (!core.softDrop()) {
             return false;
         }
         if (allowMoveSounds) { // Only play sound if allowed
@@ -472,103 +558,49 @@ private void togglePause() {
         return true;
     }
 
-    private void moveLeft() {
-        currentX--;
-        if (collision()) {
-            currentX++;
+    private void hardDrop() {
+        if (core.hardDrop() > 0) {
+            playMoveSound();
         }
+        lockPiece();
     }
 
-    private void moveRight() {
-        currentX++;
-        if (collision()) {
-            currentX--;
-        }
+    private void moveLeft() {
+        core.moveLeft();
     }
 
-    private void rotate() {
-        int[][] rotated = new int[currentPiece[0].length][currentPiece.length];
-
-        for (int y = 0; y < currentPiece.length; y++) {
-            for (int x = 0; x < currentPiece[y].length; x++) {
-                rotated[x][currentPiece.length - 1 - y] = currentPiece[y][x];
-            }
-        }
-
-        int[][] oldPiece = currentPiece;
-        currentPiece = rotated;
-        if (collision()) {
-            currentPiece = oldPiece;
-        }
+    private void moveRight() {
+        core.moveRight();
     }
 
-    private void mergePiece() {
-        for (int y = 0; y < currentPiece.length; y++) {
-            for (int x = 0; x < currentPiece[y].length; x++) {
-                if (currentPiece[y][x] != 0) {
-                    grid[currentY + y][currentX + x] = currentColor;
-                }
-            }
-        }
+    private void rotate() {
+        core.rotate();
     }
 
-    private void clearLines() {
-        int linesRemoved = 0;
-        int oldLevel = level; // Store current level before potential change
+    private void lockPiece() {
+        int oldLevel = core.level; // Store current level before potential change
+        core.mergePiece();
+        int linesRemoved = core.clearLines();
 
-        for (int y = HEIGHT - 1; y >= 0; y--) {
-            boolean fullLine = true;
-            for (int x = 0; x < WIDTH; x++) {
-                if (grid[y][x] == 0) {
-                    fullLine = false;
-                    break;
-                }
-            }
-
-            if (fullLine) {
-                // Move all lines above down
-                for (int yy = y; yy > 0; yy--) {
-                    System.arraycopy(grid[yy - 1], 0, grid[yy], 0, WIDTH);
-                }
-                // Clear top line
-                grid[0] = new int[WIDTH];
-                linesRemoved++;
-                y++; // Check the same line again
-            }
-        }
-
-        // Update score and level
         if (linesRemoved > 0) {
-            linesCleared += linesRemoved;
-            score += calculateScore(linesRemoved);
-
-            // Increase level every 10 lines
-            int newLevel = 1 + (linesCleared / 10);
-            // Check if level changed
-            if (newLevel > oldLevel) {
-                level = newLevel;
-                // Decrease game speed by 50ms per level (max speed of 100ms)
-                gameSpeed = Math.max(100, 500 - (level * 50));
-                gameTimer.setDelay(gameSpeed);
+            if (core.level > oldLevel) {
                 playLevelUpSound(); // Play level up sound
             }
-
             playLineClearSound(); // Play long beep for line clear
         }
+        newPiece();
     }
 
-    private int calculateScore(int lines) {
-        switch (lines) {
-            case 1:
-                return 100 * level;
-            case 2:
-                return 300 * level;
-            case 3:
-                return 500 * level;
-            case 4:
-                return 800 * level;
-            default:
-                return 0;
+    // Practice mode: return to where the piece steps placements back spawned.
+    // 0 restarts the current piece, or the fatal one after game over.
+    private void undoPlacement(int steps) {
+        if (!core.mode.rewind || !rewindBuffer.rewind(core, steps)) return;
+
+        if (gameState == GameState.GAME_OVER) {
+            gameState = GameState.PLAYING;
+            isGameActive = true;
+            allowMoveSounds = true;
+            startGameLoop();
         }
     }
 
@@ -578,283 +610,47 @@ private void togglePause() {
         playGameOverSound(); // Play end sound
         gameTimer.stop();
         gameState = GameState.GAME_OVER;
+        recordGame();
+        deleteAutosave();
     }
 
-    private void drawBlock(Graphics g, int x, int y, int colorIdx) {
-        Color color = COLORS[colorIdx];
-
-        // Check if this is a preview block (smaller size)
-        boolean isPreview = (x < 0 || y < 0); // Negative coordinates indicate preview
-
-        int size = isPreview ? BLOCK_SIZE/2 : BLOCK_SIZE;
-        int drawX = isPreview ? -x : 10 + x * BLOCK_SIZE;
-        int drawY = isPreview ? -y : 10 + y * BLOCK_SIZE;
-
-        // Block with 3D effect
-        g.setColor(color);
-        g.fillRect(10 + x * BLOCK_SIZE, 10 + y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
-
-        // Highlight
-        g.setColor(color.brighter());
-        g.drawLine(drawX, drawY, drawX + size - 1, drawY);
-        g.drawLine(drawX, drawY, drawX, drawY + size - 1);
-
-        // Shadow
-        g.setColor(color.darker());
-        g.drawLine(drawX + size - 1, drawY, drawX + size - 1, drawY + size - 1);
-        g.drawLine(drawX, drawY + size - 1, drawX + size - 1, drawY + size - 1);
-    }
-
-    private void drawAnimation(Graphics g) {
-        Graphics2D g2d = (Graphics2D)g;
-        
-        // Clear background
-        g2d.setColor(BG_COLOR);
-        g2d.fillRect(0, 0, getWidth(), getHeight());
-        
-        // Calculate animation progress (0.0 to 1.0)
-        float progress = Math.min(1.0f, (float)animationStep * 30 / ANIMATION_DURATION);
-        
-        // Draw expanding square pattern
-        int maxDist = Math.max(WIDTH, HEIGHT)/2;
-        int currentDist = (int)(progress * maxDist);
-        
-        // Draw grid of blocks expanding outward
-        for (int y = 0; y < HEIGHT; y++) {
-            for (int x = 0; x < WIDTH; x++) {
-                int distX = Math.abs(x - WIDTH/2);
-                int distY = Math.abs(y - HEIGHT/2);
-                int distance = Math.max(distX, distY);
-                
-                if (distance <= currentDist) {
-                    // Calculate color based on position and animation step
-                    int colorIdx = 1 + ((x + y + animationStep/3) % (COLORS.length-1));
-                    drawAnimatedBlock(g2d, x, y, colorIdx, 
-                        rotationAngle * (distance+1) / 2); // Vary rotation by distance
-                }
-            }
-        }
-        
-        // Draw center piece that grows and rotates
-        int centerSize = (int)(progress * 4); // Grows from 0 to 4 blocks
-        if (centerSize > 0) {
-            int[][] demoPiece = new int[centerSize][centerSize];
-            for (int y = 0; y < centerSize; y++) {
-                for (int x = 0; x < centerSize; x++) {
-                    demoPiece[y][x] = 1;
-                }
-            }
-            
-            Graphics2D centerG = (Graphics2D)g2d.create();
-            int centerX = 10 + WIDTH * BLOCK_SIZE / 2 - (centerSize * BLOCK_SIZE)/2;
-            int centerY = 10 + HEIGHT * BLOCK_SIZE / 2 - (centerSize * BLOCK_SIZE)/2;
-            
-            centerG.translate(centerX, centerY);
-            centerG.rotate(Math.toRadians(rotationAngle), 
-                        (centerSize * BLOCK_SIZE)/2, 
-                        (centerSize * BLOCK_SIZE)/2);
-            
-            for (int y = 0; y < demoPiece.length; y++) {
-                for (int x = 0; x < demoPiece[y].length; x++) {
-                    if (demoPiece[y][x] != 0) {
-                        centerG.setColor(COLORS[7]); // Orange
-                        centerG.fillRect(x * BLOCK_SIZE, y * BLOCK_SIZE, BLOCK_SIZE, BLOCK_SIZE);
-                    }
-                }
-            }
-            centerG.dispose();
-        }
-        
-        // Draw "BRICK GAME" text that appears
-        if (progress > 0.3) {
-            float textAlpha = Math.min(1.0f, (progress - 0.3f) / 0.2f);
-            g2d.setColor(new Color(255, 255, 255, (int)(textAlpha * 255)));
-            g2d.setFont(new Font("Arial", Font.BOLD, 24));
-            
-            String text = "BRICK GAME";
-            FontMetrics fm = g2d.getFontMetrics();
-            int x = (getWidth() - fm.stringWidth(text)) / 2;
-            int y = HEIGHT * BLOCK_SIZE / 3;
-            
-            g2d.drawString(text, x, y);
-        }
-        
-        // Draw "TETRIS" text that appears later
-        if (progress > 0.6) {
-            float textAlpha = Math.min(1.0f, (progress - 0.6f) / 0.2f);
-            g2d.setColor(new Color(255, 255, 255, (int)(textAlpha * 255)));
-            g2d.setFont(new Font("Arial", Font.BOLD, 36));
-            
-            String text = "TETRIS";
-            FontMetrics fm = g2d.getFontMetrics();
-            int x = (getWidth() - fm.stringWidth(text)) / 2;
-            int y = HEIGHT * BLOCK_SIZE * 2 / 3;
-            
-            g2d.drawString(text, x, y);
-        }
-    }
-
-    private void drawAnimatedBlock(Graphics g, int x, int y, int colorIdx, int angle) {
-        Graphics2D g2d = (Graphics2D) g;
-        AffineTransform originalTransform = g2d.getTransform();
-
-        try {
-            int centerX = 10 + x * BLOCK_SIZE + BLOCK_SIZE / 2;
-            int centerY = 10 + y * BLOCK_SIZE + BLOCK_SIZE / 2;
-
-            g2d.translate(centerX, centerY);
-            g2d.rotate(Math.toRadians(angle));
-            g2d.translate(-BLOCK_SIZE / 2, -BLOCK_SIZE / 2);
-
-            Color color = COLORS[colorIdx];
-            g2d.setColor(color);
-            g2d.fillRect(0, 0, BLOCK_SIZE, BLOCK_SIZE);
-
-            // Optimized highlight/shadow drawing
-            g2d.setColor(color.brighter());
-            g2d.drawLine(0, 0, BLOCK_SIZE - 1, 0);
-            g2d.drawLine(0, 0, 0, BLOCK_SIZE - 1);
-
-            g2d.setColor(color.darker());
-            g2d.drawLine(BLOCK_SIZE - 1, 0, BLOCK_SIZE - 1, BLOCK_SIZE - 1);
-            g2d.drawLine(0, BLOCK_SIZE - 1, BLOCK_SIZE - 1, BLOCK_SIZE - 1);
-
-        } finally {
-            g2d.setTransform(originalTransform);
-        }
-    }
-
-    private void drawSidebar(Graphics g) {
-        int sidebarX = WIDTH * BLOCK_SIZE + 20;
-
-        // Sidebar background
-        g.setColor(new Color(240, 240, 240));
-        g.fillRect(sidebarX + 5, 10, SIDEBAR_WIDTH - 10, HEIGHT * BLOCK_SIZE);
-        g.setColor(Color.BLACK);
-        g.drawRect(sidebarX, 10, SIDEBAR_WIDTH - 10, HEIGHT * BLOCK_SIZE);
-
-        // Game info
-        g.setFont(new Font("Arial", Font.BOLD, 12));
-        g.setColor(new Color(180, 50, 180)); // Purple color
-        g.drawString("BRICK GAME", sidebarX + 10, 45);
-        g.drawString("9999-in-1", sidebarX + 15, 55);
-
-        Color textColor = (nextPieceColor >= 1 && nextPieceColor < COLORS.length) ? 
-                        COLORS[nextPieceColor] : Color.BLACK;
-
-        // Next piece preview
-        g.setColor(textColor);
-        g.drawString("NEXT:", sidebarX + 10, 80);
-        if (nextPiece != null) {
-            // Calculate center position for the preview
-            int previewX = sidebarX + (SIDEBAR_WIDTH/2 - nextPiece[0].length * BLOCK_SIZE/3);
-            int previewY = 110;
-            
-            // Draw the next piece preview
-            for (int y = 0; y < nextPiece.length; y++) {
-                for (int x = 0; x < nextPiece[y].length; x++) {
-                    if (nextPiece[y][x] != 0) {
-                        // Draw smaller blocks for preview
-                        int blockX = previewX + x * BLOCK_SIZE/2;
-                        int blockY = previewY + y * BLOCK_SIZE/2;
-                        
-                        // Block with 3D effect
-                        g.setColor(COLORS[nextPieceColor]);
-                        g.fillRect(blockX, blockY, BLOCK_SIZE/2, BLOCK_SIZE/2);
-                        
-                        // Highlight
-                        g.setColor(COLORS[nextPieceColor].brighter());
-                        g.drawLine(blockX, blockY, blockX + BLOCK_SIZE/2 - 1, blockY);
-                        g.drawLine(blockX, blockY, blockX, blockY + BLOCK_SIZE/2 - 1);
-                        
-                        // Shadow
-                        g.setColor(COLORS[nextPieceColor].darker());
-                        g.drawLine(blockX + BLOCK_SIZE/2 - 1, blockY, 
-                                blockX + BLOCK_SIZE/2 - 1, blockY + BLOCK_SIZE/2 - 1);
-                        g.drawLine(blockX, blockY + BLOCK_SIZE/2 - 1, 
-                                blockX + BLOCK_SIZE/2 - 1, blockY + BLOCK_SIZE/2 - 1);
-                    }
-                }
-            }
-        }
-
-        // Score
-        g.setFont(new Font("Arial", Font.BOLD, 12));
-        g.drawString("SCORE:", sidebarX + 10, 160);
-        g.drawString(String.valueOf(score), sidebarX + 10, 180);
-
-        //Level
-        g.drawString("LEVEL:", sidebarX + 10, 210);
-        g.drawString(String.valueOf(level), sidebarX + 10, 230);
-
-        // Add speed indicator
-        g.drawString("SPEED:", sidebarX + 10, 260);
-        g.drawString(String.valueOf((500 - gameSpeed)/50 + 1) + "x", sidebarX + 10, 280); // Shows speed multiplier
-
-        //Lines Removed
-        g.drawString("LINES:", sidebarX + 10, 310);
-        g.drawString(String.valueOf(linesCleared), sidebarX + 10, 330);
-
-        // Controls help
-        g.setFont(new Font("Arial", Font.PLAIN, 10));
-        g.drawString("CONTROLS:", sidebarX + 10, 370);
-        g.drawString("← → : Move", sidebarX + 10, 390);
-        g.drawString("↑ : Rotate", sidebarX + 10, 410);
-        g.drawString("↓ : Drop", sidebarX + 10, 430);
-        g.drawString("P : Pause", sidebarX + 10, 450);
-    }
-
-    private void drawMenu(Graphics g) {
-        // Semi-transparent overlay
-        g.setColor(new Color(0, 0, 0, 150));
-        g.fillRect(10, 10, WIDTH * BLOCK_SIZE, HEIGHT * BLOCK_SIZE);
-
-        // Menu text
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 24));
-        drawCenteredString(g, "BRICK GAME", WIDTH * BLOCK_SIZE / 2 + 10, 100);
-
-        g.setFont(new Font("Arial", Font.BOLD, 16));
-        drawCenteredString(g, "9999-in-1", WIDTH * BLOCK_SIZE / 2 + 10, 130);
-        drawCenteredString(g, "TETRIS", WIDTH * BLOCK_SIZE / 2 + 10, 180);
-
-        g.setFont(new Font("Arial", Font.PLAIN, 14));
-        drawCenteredString(g, "Press ENTER to start", WIDTH * BLOCK_SIZE / 2 + 10, 250);
-    }
-
-    private void drawGameOver(Graphics g) {
-        // Semi-transparent overlay
-        g.setColor(new Color(0, 0, 0, 150));
-        g.fillRect(10, 10, WIDTH * BLOCK_SIZE, HEIGHT * BLOCK_SIZE);
-
-        // Game over text
-        g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 24));
-        drawCenteredString(g, "GAME OVER", WIDTH * BLOCK_SIZE / 2 + 10, 150);
-
-        g.setFont(new Font("Arial", Font.PLAIN, 14));
-        drawCenteredString(g, "Score: " + score, WIDTH * BLOCK_SIZE / 2 + 10, 200);
-        drawCenteredString(g, "Press ENTER for menu", WIDTH * BLOCK_SIZE / 2 + 10, 250);
-    }
-
-    private void drawCenteredString(Graphics g, String text, int x, int y) {
-        FontMetrics fm = g.getFontMetrics();
-        int textWidth = fm.stringWidth(text);
-        g.drawString(text, x - textWidth / 2, y);
+    private void recordGame() {
+        if (scoreStore == null || !core.mode.ranked) return;
+        long now = System.currentTimeMillis();
+        scoreStore.record(new ScoreStore.GameRecord(core.mode.id, core.score, core.level, core.linesCleared,
+                now - gameStartTime, core.seed, now));
     }
 
     @Override
     public void dispose() {
         soundExecutor.shutdownNow();
+        saveExecutor.shutdown();
+        if (scoreStore != null)
+            scoreStore.close();
+        if (broadcastServer != null)
+            broadcastServer.close();
         if (levelUpSound != null)
             levelUpSound.close();
         super.dispose();
     }
 
     public static void main(String[] args) {
+        int broadcastPort = -1;
+        for (String arg : args) {
+            if (arg.equals("--broadcast")) {
+                broadcastPort = BroadcastServer.DEFAULT_PORT;
+            } else if (arg.startsWith("--broadcast=")) {
+                broadcastPort = Integer.parseInt(arg.substring("--broadcast=".length()));
+            }
+        }
+        int port = broadcastPort;
+
         SwingUtilities.invokeLater(() -> {
             BrickGameTetris game = new BrickGameTetris();
             game.setVisible(true);
+            if (port >= 0) {
+                game.startBroadcast(port);
+            }
             
             // Initialize buffer strategy after showing
             game.createBufferStrategy(2);
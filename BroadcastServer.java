@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Streams the live game to spectators (see BoardStream for the format).
+//
+// The game thread encodes each tick once into a pooled direct buffer and
+// hands it to a single non-blocking selector thread. Every client is given a
+// duplicate() of that same buffer, so fan-out costs no copies no matter how
+// many displays are watching. A client that falls more than MAX_PENDING
+// frames behind has its backlog dropped and resumes from the next keyframe,
+// so one slow display never holds up the others or grows memory.
+class BroadcastServer implements AutoCloseable {
+    static final int DEFAULT_PORT = 47999;
+    private static final int MAX_PENDING = 128;
+
+    // A pooled frame and the number of clients still writing it
+    private static final class Frame {
+        final ByteBuffer data = ByteBuffer.allocateDirect(BoardStream.MAX_FRAME_SIZE);
+        boolean keyframe;
+        int refs;
+    }
+
+    private static final class Client {
+        final SocketChannel channel;
+        final Queue<Frame> pending = new ArrayDeque<>();
+        ByteBuffer head; // view of pending.peek() being written
+        boolean needsKeyframe = true;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Frame> outbox = new ConcurrentLinkedQueue<>();
+    private final Queue<Frame> pool = new ConcurrentLinkedQueue<>();
+    private final List<Client> clients = new ArrayList<>();
+    private final BoardStream.Encoder encoder = new BoardStream.Encoder();
+    private final AtomicBoolean keyframeRequested = new AtomicBoolean(false);
+    private final ByteBuffer inputSink = ByteBuffer.allocate(64);
+    private volatile int clientCount = 0;
+    private volatile boolean closed = false;
+
+    private BroadcastServer(ServerSocketChannel server, Selector selector) {
+        this.server = server;
+        this.selector = selector;
+        this.thread = new Thread(this::run, "broadcast");
+        this.thread.setDaemon(true);
+    }
+
+    static BroadcastServer start(InetSocketAddress address) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        Selector selector = Selector.open();
+        try {
+            server.bind(address);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            selector.close();
+            server.close();
+            throw e;
+        }
+        BroadcastServer broadcast = new BroadcastServer(server, selector);
+        broadcast.thread.start();
+        return broadcast;
+    }
+
+    int port() {
+        return server.socket().getLocalPort();
+    }
+
+    // Called from the game thread once per tick. Cheap when nobody is
+    // watching or nothing changed.
+    void publish(TetrisCore core, byte state) {
+        if (closed || clientCount == 0) return;
+
+        Frame frame = pool.poll();
+        if (frame == null) {
+            frame = new Frame();
+        }
+        frame.data.clear();
+        if (!encoder.encode(core, state, keyframeRequested.getAndSet(false), frame.data)) {
+            pool.offer(frame);
+            return;
+        }
+        frame.data.flip();
+        frame.keyframe = frame.data.get(4) == BoardStream.KEYFRAME;
+        outbox.offer(frame);
+        selector.wakeup();
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                selector.select();
+                dispatchFrames();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        Client client = (Client) key.attachment();
+                        if (key.isReadable()) {
+                            drainInput(client);
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            flush(client);
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Broadcast error: " + e.getMessage());
+        } finally {
+            for (Client client : new ArrayList<>(clients)) {
+                drop(client);
+            }
+            try {
+                selector.close();
+                server.close();
+            } catch (IOException e) {
+                System.err.println("Broadcast error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Client client = new Client(channel);
+        channel.register(selector, SelectionKey.OP_READ, client);
+        clients.add(client);
+        clientCount = clients.size();
+        keyframeRequested.set(true);
+    }
+
+    // Hands each new frame to every client that can use it
+    private void dispatchFrames() {
+        Frame frame;
+        while ((frame = outbox.poll()) != null) {
+            frame.refs = 1; // held until every client has it queued
+            for (int i = clients.size() - 1; i >= 0; i--) {
+                Client client = clients.get(i);
+                if (client.needsKeyframe && !frame.keyframe) continue;
+                if (client.pending.size() >= MAX_PENDING) {
+                    resync(client);
+                    if (!frame.keyframe) continue;
+                }
+                client.needsKeyframe = false;
+                client.pending.add(frame);
+                frame.refs++;
+                flush(client);
+            }
+            release(frame);
+        }
+    }
+
+    // Writes as much as the socket takes without blocking
+    private void flush(Client client) {
+        try {
+            while (!client.pending.isEmpty()) {
+                if (client.head == null) {
+                    client.head = client.pending.peek().data.duplicate();
+                }
+                client.channel.write(client.head);
+                if (client.head.hasRemaining()) break;
+                client.head = null;
+                release(client.pending.poll());
+            }
+            SelectionKey key = client.channel.keyFor(selector);
+            if (key != null && key.isValid()) {
+                key.interestOps(client.pending.isEmpty()
+                    ? SelectionKey.OP_READ
+                    : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } catch (IOException e) {
+            drop(client);
+        }
+    }
+
+    // Spectators never send anything; reading only detects disconnects
+    private void drainInput(Client client) {
+        try {
+            while (true) {
+                inputSink.clear();
+                int n = client.channel.read(inputSink);
+                if (n < 0) {
+                    drop(client);
+                    return;
+                }
+                if (n == 0) return;
+            }
+        } catch (IOException e) {
+            drop(client);
+        }
+    }
+
+    // Throws away a lagging client's backlog; it picks up again at the next keyframe
+    private void resync(Client client) {
+        // Keep a partly written frame so the stream stays aligned
+        Frame partial = client.head != null ? client.pending.poll() : null;
+        while (!client.pending.isEmpty()) {
+            release(client.pending.poll());
+        }
+        if (partial != null) {
+            client.pending.add(partial);
+        }
+        client.needsKeyframe = true;
+        keyframeRequested.set(true);
+    }
+
+    private void drop(Client client) {
+        if (!clients.remove(client)) return;
+        clientCount = clients.size();
+        client.head = null;
+        while (!client.pending.isEmpty()) {
+            release(client.pending.poll());
+        }
+        try {
+            client.channel.close();
+        } catch (IOException ignored) {
+            // Already gone
+        }
+    }
+
+    private void release(Frame frame) {
+        if (--frame.refs == 0) {
+            pool.offer(frame);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+// Game modes selectable from the menu. The id is what gets persisted,
+// so never renumber an existing mode.
+enum GameMode {
+    MARATHON(0, "MARATHON", true, false, GravityCurve.CLASSIC, ScoringRules.CLASSIC),
+    PRACTICE(1, "PRACTICE", false, true, GravityCurve.CLASSIC, ScoringRules.GUIDELINE), // Z undoes placements, scores are not kept
+    TOURNAMENT(2, "TOURNAMENT", true, false, GravityCurve.TOURNAMENT, ScoringRules.GUIDELINE);
+
+    final int id;
+    final String label;
+    final boolean ranked;
+    final boolean rewind;
+    final GravityCurve gravity;
+    final ScoringRules scoring;
+
+    GameMode(int id, String label, boolean ranked, boolean rewind, GravityCurve gravity, ScoringRules scoring) {
+        this.id = id;
+        this.label = label;
+        this.ranked = ranked;
+        this.rewind = rewind;
+        this.gravity = gravity;
+        this.scoring = scoring;
+    }
+
+    GameMode next() {
+        GameMode[] modes = values();
+        return modes[(ordinal() + 1) % modes.length];
+    }
+
+    GameMode previous() {
+        GameMode[] modes = values();
+        return modes[(ordinal() + modes.length - 1) % modes.length];
+    }
+
+    static GameMode byId(int id) {
+        for (GameMode mode : values()) {
+            if (mode.id == id) return mode;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,183 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Fixed-size binary snapshot of a TetrisCore.
+//
+// Layout (big-endian, SIZE bytes):
+//   0  int   magic "BRKG"
+//   4  byte  version
+//   5  byte  mode id
+//   6  byte  current piece type (-1 before the first spawn)
+//   7  byte  current rotation
+//   8  byte  current colour
+//   9  byte  current x
+//  10  byte  current y
+//  11  byte  next piece type
+//  12  byte  next colour
+//  13  byte  combo (-1 = none)
+//  14  byte  flags: 1 = back-to-back, 2 = last move was a rotation
+//  15  byte  filled cells, unsigned
+//  16  int   score
+//  20  int   level
+//  24  int   lines cleared
+//  28  int   lock resets used by the current piece
+//  32  long  RNG state
+//  40  long  seed
+//  48  long  play time (ms)
+//  56  long  gravity accumulator
+//  64  long  lock delay elapsed (ns)
+//  72  grid, two cells per byte, row-major, high nibble first
+//
+// Writing and reading go straight between the core's fields and the buffer,
+// starting at the buffer's position, without allocating. Because every
+// snapshot is the same size, a buffer of N * SIZE bytes holds N of them.
+final class GameSnapshot {
+    static final int MAGIC = 0x42524B47; // "BRKG"
+    static final int VERSION = 3;
+    private static final int FIRST_VERSION_READ = 2; // version 2 lacks bytes 13-15
+
+    private static final int FLAG_BACK_TO_BACK = 1;
+    private static final int FLAG_ROTATED = 2;
+    static final int HEADER_SIZE = 72;
+    static final int GRID_SIZE = TetrisCore.WIDTH * TetrisCore.HEIGHT / 2;
+    static final int SIZE = HEADER_SIZE + GRID_SIZE;
+
+    private GameSnapshot() {
+    }
+
+    static void write(TetrisCore core, ByteBuffer buf) {
+        int base = buf.position();
+        writeHeader(core, buf, base);
+        int pos = base + HEADER_SIZE;
+        for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+            int[] row = core.grid[y];
+            for (int x = 0; x < TetrisCore.WIDTH; x += 2) {
+                buf.put(pos++, (byte) ((row[x] << 4) | row[x + 1]));
+            }
+        }
+        buf.position(base + SIZE);
+    }
+
+    // Restores core from the snapshot at the buffer's position. Leaves core
+    // untouched and returns false if the bytes are not a valid snapshot.
+    static boolean read(TetrisCore core, ByteBuffer buf) {
+        int base = buf.position();
+        if (buf.remaining() < SIZE || !isValidHeader(buf, base)) return false;
+        int pos = base + HEADER_SIZE;
+        for (int i = 0; i < GRID_SIZE; i++) {
+            int cells = buf.get(pos + i);
+            if ((cells & 0x0F) > TetrisCore.COLOR_COUNT || ((cells >> 4) & 0x0F) > TetrisCore.COLOR_COUNT) {
+                return false;
+            }
+        }
+
+        readHeader(core, buf, base);
+        for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+            int[] row = core.grid[y];
+            for (int x = 0; x < TetrisCore.WIDTH; x += 2) {
+                int cells = buf.get(pos++);
+                row[x] = (cells >> 4) & 0x0F;
+                row[x + 1] = cells & 0x0F;
+            }
+        }
+        // Recounted rather than trusted: version 2 snapshots carry no count
+        core.filledCells = 0;
+        for (int[] row : core.grid) {
+            for (int cell : row) {
+                if (cell != 0) core.filledCells++;
+            }
+        }
+        buf.position(base + SIZE);
+        return true;
+    }
+
+    // Everything except the grid, at an absolute offset
+    static void writeHeader(TetrisCore core, ByteBuffer buf, int base) {
+        buf.putInt(base, MAGIC);
+        buf.put(base + 4, (byte) VERSION);
+        buf.put(base + 5, (byte) core.mode.id);
+        buf.put(base + 6, (byte) core.currentType);
+        buf.put(base + 7, (byte) core.currentRotation);
+        buf.put(base + 8, (byte) core.currentColor);
+        buf.put(base + 9, (byte) core.currentX);
+        buf.put(base + 10, (byte) core.currentY);
+        buf.put(base + 11, (byte) core.nextType);
+        buf.put(base + 12, (byte) core.nextPieceColor);
+        buf.put(base + 13, (byte) core.combo);
+        buf.put(base + 14, (byte) ((core.backToBack ? FLAG_BACK_TO_BACK : 0)
+            | (core.lastMoveRotation ? FLAG_ROTATED : 0)));
+        buf.put(base + 15, (byte) core.filledCells);
+        buf.putInt(base + 16, core.score);
+        buf.putInt(base + 20, core.level);
+        buf.putInt(base + 24, core.linesCleared);
+        buf.putInt(base + 28, core.lockResets);
+        buf.putLong(base + 32, core.random.getState());
+        buf.putLong(base + 40, core.seed);
+        buf.putLong(base + 48, core.playTimeMs);
+        buf.putLong(base + 56, core.gravityAccumulator);
+        buf.putLong(base + 64, core.lockNanos);
+    }
+
+    static boolean isValidHeader(ByteBuffer buf, int base) {
+        int version = buf.get(base + 4);
+        if (buf.getInt(base) != MAGIC || version < FIRST_VERSION_READ || version > VERSION) return false;
+        if (GameMode.byId(buf.get(base + 5)) == null) return false;
+        int type = buf.get(base + 6);
+        int color = buf.get(base + 8);
+        int nextType = buf.get(base + 11);
+        int nextColor = buf.get(base + 12);
+        return type >= -1 && type < TetrisCore.TETROMINOS.length
+            && (type < 0 || (color >= 1 && color <= TetrisCore.COLOR_COUNT))
+            && nextType >= 0 && nextType < TetrisCore.TETROMINOS.length
+            && nextColor >= 1 && nextColor <= TetrisCore.COLOR_COUNT;
+    }
+
+    // Restores everything except the grid; the header must be valid
+    static void readHeader(TetrisCore core, ByteBuffer buf, int base) {
+        core.mode = GameMode.byId(buf.get(base + 5));
+        int type = buf.get(base + 6);
+        if (type >= 0) {
+            core.setCurrent(type, buf.get(base + 7) & 3);
+        } else {
+            core.currentPiece = null;
+            core.currentType = -1;
+        }
+        core.currentColor = buf.get(base + 8);
+        core.currentX = buf.get(base + 9);
+        core.currentY = buf.get(base + 10);
+        core.setNext(buf.get(base + 11), buf.get(base + 12));
+        int flags = buf.get(base + 14);
+        core.combo = buf.get(base + 4) >= 3 ? buf.get(base + 13) : -1;
+        core.backToBack = (flags & FLAG_BACK_TO_BACK) != 0;
+        core.lastMoveRotation = (flags & FLAG_ROTATED) != 0;
+        core.filledCells = buf.get(base + 15) & 0xFF;
+        core.score = buf.getInt(base + 16);
+        core.level = buf.getInt(base + 20);
+        core.linesCleared = buf.getInt(base + 24);
+        core.lockResets = buf.getInt(base + 28);
+        core.random.setState(buf.getLong(base + 32));
+        core.seed = buf.getLong(base + 40);
+        core.playTimeMs = buf.getLong(base + 48);
+        core.gravityAccumulator = buf.getLong(base + 56);
+        core.lockNanos = buf.getLong(base + 64);
+    }
+
+    // Replaces the file atomically, so a crash mid-save keeps the previous one
+    static void saveFile(Path path, byte[] snapshot) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tmp, snapshot);
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static boolean loadFile(Path path, TetrisCore core) throws IOException {
+        if (!Files.isRegularFile(path) || Files.size(path) != SIZE) return false;
+        return read(core, ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+}
@@ -0,0 +1,139 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Per-level gravity and lock delay, built from a small text table:
+//
+//   <from level>  <gravity in G>  <lock delay in frames>
+//
+// Gravity is rows per 1/60 s frame and may be written as a fraction ("1/30")
+// or a number ("0.5", "20"); at 20G a piece hits the stack the moment it
+// spawns. Each row applies from its level up to the next row's level, and
+// the last row covers every level after it.
+final class GravityCurve {
+    static final int G = 65536; // fixed point: 1 row per frame
+    static final int INSTANT = 20 * G; // a full board height per frame
+    static final int FRAMES_PER_SECOND = 60;
+
+    // The original speed curve: 500 ms per row at level 1, 100 ms from level 8.
+    // A grounded piece locks one row interval after landing.
+    static final GravityCurve CLASSIC = parse("classic",
+        "1  1/30  30\n" +
+        "2  1/24  24\n" +
+        "3  1/21  21\n" +
+        "4  1/18  18\n" +
+        "5  1/15  15\n" +
+        "6  1/12  12\n" +
+        "7  1/9   9\n" +
+        "8  1/6   6\n");
+
+    // Reaches 1G at level 13 and 20G at level 20, with a shrinking lock delay.
+    static final GravityCurve TOURNAMENT = parse("tournament",
+        "1   1/60  30\n" +
+        "2   1/48  30\n" +
+        "3   1/37  30\n" +
+        "4   1/28  30\n" +
+        "5   1/21  30\n" +
+        "6   1/16  30\n" +
+        "7   1/11  30\n" +
+        "8   1/8   30\n" +
+        "9   1/6   30\n" +
+        "10  1/4   30\n" +
+        "11  1/3   30\n" +
+        "12  1/2   30\n" +
+        "13  1     30\n" +
+        "14  2     28\n" +
+        "15  3     26\n" +
+        "16  5     24\n" +
+        "17  8     22\n" +
+        "18  12    20\n" +
+        "19  16    18\n" +
+        "20  20    17\n" +
+        "25  20    15\n" +
+        "30  20    12\n");
+
+    final String name;
+    private final int[] fromLevel;
+    private final int[] gravity;
+    private final long[] lockDelayNanos;
+    private final String[] labels;
+
+    private GravityCurve(String name, int[] fromLevel, int[] gravity, long[] lockDelayNanos, String[] labels) {
+        this.name = name;
+        this.fromLevel = fromLevel;
+        this.gravity = gravity;
+        this.lockDelayNanos = lockDelayNanos;
+        this.labels = labels;
+    }
+
+    // Gravity at level, in G / 65536
+    int gravity(int level) {
+        return gravity[row(level)];
+    }
+
+    long lockDelayNanos(int level) {
+        return lockDelayNanos[row(level)];
+    }
+
+    // Gravity as written in the table, for display
+    String label(int level) {
+        return labels[row(level)];
+    }
+
+    private int row(int level) {
+        int i = fromLevel.length - 1;
+        while (i > 0 && fromLevel[i] > level) {
+            i--;
+        }
+        return i;
+    }
+
+    static GravityCurve parse(String name, String table) {
+        List<String[]> rows = new ArrayList<>();
+        for (String line : table.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\\s+");
+            if (fields.length != 3) {
+                throw new IllegalArgumentException(name + ": expected 3 fields in \"" + line + "\"");
+            }
+            rows.add(fields);
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException(name + ": empty gravity table");
+        }
+
+        int n = rows.size();
+        int[] fromLevel = new int[n];
+        int[] gravity = new int[n];
+        long[] lockDelayNanos = new long[n];
+        String[] labels = new String[n];
+        for (int i = 0; i < n; i++) {
+            String[] fields = rows.get(i);
+            try {
+                fromLevel[i] = Integer.parseInt(fields[0]);
+                gravity[i] = parseGravity(fields[1]);
+                lockDelayNanos[i] = Integer.parseInt(fields[2]) * 1_000_000_000L / FRAMES_PER_SECOND;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + ": bad number in row " + (i + 1), e);
+            }
+            labels[i] = fields[1];
+            if (i > 0 && fromLevel[i] <= fromLevel[i - 1]) {
+                throw new IllegalArgumentException(name + ": levels must increase, row " + (i + 1));
+            }
+            if (gravity[i] <= 0) {
+                throw new IllegalArgumentException(name + ": gravity must be positive, row " + (i + 1));
+            }
+        }
+        return new GravityCurve(name, fromLevel, gravity, lockDelayNanos, labels);
+    }
+
+    private static int parseGravity(String text) {
+        int slash = text.indexOf('/');
+        if (slash < 0) {
+            return (int) Math.round(Double.parseDouble(text) * G);
+        }
+        double num = Double.parseDouble(text.substring(0, slash));
+        double den = Double.parseDouble(text.substring(slash + 1));
+        return (int) Math.round(num * G / den);
+    }
+}
@@ -0,0 +1,314 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.function.Supplier;
+import javax.imageio.ImageIO;
+
+// Renders known game states offscreen, with no display, and checks them
+// against golden images; optionally benchmarks frame time and allocation.
+//
+// Usage: java RenderHarness [--golden=DIR] [--out=DIR] [--update] [--bench[=FRAMES]]
+//
+// Each scene is drawn by BoardRenderer into a BufferedImage and compared
+// with DIR/<scene>.png (default "golden"). A pixel differs when any channel
+// is off by more than CHANNEL_TOLERANCE, and a scene fails when more than
+// MAX_DIFF_FRACTION of its pixels differ, which absorbs antialiasing noise
+// but not a moved or missing block. Failures write <scene>.actual.png and
+// <scene>.diff.png to the --out directory. --update rewrites the golden
+// images instead; run it on the same JDK and fonts as CI. Exits 1 if any
+// scene fails and 2 if a golden image is missing.
+class RenderHarness {
+    private static final int CHANNEL_TOLERANCE = 24;
+    private static final double MAX_DIFF_FRACTION = 0.002;
+    private static final int WARMUP_FRAMES = 200;
+    private static final int DEFAULT_BENCH_FRAMES = 1000;
+
+    private static final class Scene {
+        final String name;
+        final int width, height; // in user space
+        final double scale;      // device pixels per user unit
+        final Supplier<BoardRenderer.View> setup;
+
+        Scene(String name, int width, int height, double scale, Supplier<BoardRenderer.View> setup) {
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+            this.setup = setup;
+        }
+    }
+
+    private static final int W = BoardLayout.DESIGN_WIDTH;
+    private static final int H = BoardLayout.DESIGN_HEIGHT;
+
+    private static final Scene[] SCENES = {
+        new Scene("menu", W, H, 1, () -> {
+            BoardRenderer.View v = view(placed(GameMode.MARATHON, 1, 0));
+            v.state = BrickGameTetris.GameState.MENU;
+            return v;
+        }),
+        new Scene("menu-leaderboard", W, H, 1, () -> {
+            BoardRenderer.View v = view(placed(GameMode.MARATHON, 1, 0));
+            v.state = BrickGameTetris.GameState.MENU;
+            v.scoreStore = scores(
+                new ScoreStore.GameRecord(GameMode.MARATHON.id, 12400, 7, 61, 412_000, 11, 1_000),
+                new ScoreStore.GameRecord(GameMode.MARATHON.id, 98750, 15, 142, 1_310_000, 12, 2_000),
+                new ScoreStore.GameRecord(GameMode.MARATHON.id, 3100, 2, 14, 95_000, 13, 3_000),
+                new ScoreStore.GameRecord(GameMode.MARATHON.id, 45020, 11, 103, 806_000, 14, 4_000),
+                new ScoreStore.GameRecord(GameMode.MARATHON.id, 800, 1, 4, 31_000, 15, 5_000),
+                new ScoreStore.GameRecord(GameMode.MARATHON.id, 27300, 9, 80, 640_000, 16, 6_000),
+                // Another mode's best, which must not show on this board
+                new ScoreStore.GameRecord(GameMode.TOURNAMENT.id, 500_000, 20, 200, 900_000, 17, 7_000));
+            return v;
+        }),
+        new Scene("playing", W, H, 1, RenderHarness::midGame),
+        new Scene("playing-2x", W, H, 2, RenderHarness::midGame),
+        new Scene("playing-small", 300, 380, 1, RenderHarness::midGame),
+        new Scene("spectator", W, H, 1, () -> {
+            // The mid-game board as a viewer gets it, through the stream
+            BoardRenderer.View game = midGame();
+            ByteBuffer frame = ByteBuffer.allocate(BoardStream.MAX_FRAME_SIZE);
+            new BoardStream.Encoder().encode(game.core, BoardStream.STATE_PLAYING, true, frame);
+            frame.flip();
+            BoardStream.Decoder decoder = new BoardStream.Decoder();
+            try {
+                decoder.apply(frame);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            BoardRenderer.View v = new BoardRenderer.View(new TetrisCore());
+            BrickGameSpectator.fillView(decoder, true, v);
+            return v;
+        }),
+        new Scene("practice-game-over", W, H, 1, () -> {
+            TetrisEnv env = placed(GameMode.PRACTICE, 3, 10);
+            while (!env.done) {
+                env.step(TetrisEnv.action(0, TetrisCore.WIDTH / 2 - 1));
+            }
+            BoardRenderer.View v = view(env);
+            v.state = BrickGameTetris.GameState.GAME_OVER;
+            return v;
+        }),
+        new Scene("intro", W, H, 1, () -> {
+            BoardRenderer.View v = view(placed(GameMode.MARATHON, 1, 0));
+            v.animating = true;
+            v.animationStep = 300;
+            v.rotationAngle = 240;
+            return v;
+        }),
+    };
+
+    // Scenes only timed, never compared
+    private static final Scene[] BENCH_SCENES = {
+        new Scene("playing-4k", 3840, 2160, 1, RenderHarness::midGame),
+    };
+
+    private static final int[] COLUMNS = {0, 4, 7, 2, 5, 0, 8, 3, 6, 1};
+
+    // A seeded game a few placements in, with the piece part way down
+    private static BoardRenderer.View midGame() {
+        TetrisEnv env = placed(GameMode.TOURNAMENT, 7, COLUMNS.length);
+        for (int i = 0; i < 6; i++) {
+            env.core.moveDown();
+        }
+        BoardRenderer.View v = view(env);
+        v.state = BrickGameTetris.GameState.PLAYING;
+        return v;
+    }
+
+    // A seeded game after a fixed run of placements, the same every run
+    private static TetrisEnv placed(GameMode mode, long seed, int placements) {
+        TetrisEnv env = new TetrisEnv(mode);
+        env.reset(seed);
+        for (int i = 0; i < placements && !env.done; i++) {
+            int width = TetrisCore.ROTATIONS[env.core.currentType][0][0].length;
+            env.step(TetrisEnv.action(0, Math.min(COLUMNS[i % COLUMNS.length], TetrisCore.WIDTH - width)));
+        }
+        return env;
+    }
+
+    // A store in a throwaway directory holding just these games. The
+    // leaderboard is indexed as each game is recorded, so nothing needs to
+    // wait for the background writer.
+    private static ScoreStore scores(ScoreStore.GameRecord... records) {
+        try {
+            Path dir = Files.createTempDirectory("render-harness");
+            Path file = dir.resolve("scores.bin");
+            dir.toFile().deleteOnExit();
+            file.toFile().deleteOnExit();
+            ScoreStore store = ScoreStore.open(file);
+            for (ScoreStore.GameRecord r : records) {
+                store.record(r);
+            }
+            return store;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BoardRenderer.View view(TetrisEnv env) {
+        BoardRenderer.View view = new BoardRenderer.View(env.core);
+        view.selectedMode = env.core.mode;
+        return view;
+    }
+
+    private static BufferedImage render(BoardRenderer renderer, Scene scene, BoardRenderer.View view) {
+        BufferedImage image = new BufferedImage((int) Math.round(scene.width * scene.scale),
+            (int) Math.round(scene.height * scene.scale), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.scale(scene.scale, scene.scale);
+            renderer.render(g, 0, 0, scene.width, scene.height, view);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    // Number of pixels that differ beyond the tolerance; fills diff if given
+    private static int compare(BufferedImage expected, BufferedImage actual, BufferedImage diff) {
+        int count = 0;
+        for (int y = 0; y < actual.getHeight(); y++) {
+            for (int x = 0; x < actual.getWidth(); x++) {
+                int a = expected.getRGB(x, y);
+                int b = actual.getRGB(x, y);
+                int delta = Math.max(Math.abs(((a >> 16) & 0xFF) - ((b >> 16) & 0xFF)),
+                    Math.max(Math.abs(((a >> 8) & 0xFF) - ((b >> 8) & 0xFF)),
+                        Math.abs((a & 0xFF) - (b & 0xFF))));
+                boolean differs = delta > CHANNEL_TOLERANCE;
+                if (differs) count++;
+                if (diff != null) {
+                    diff.setRGB(x, y, differs ? 0xFF0000 : (b & 0xFEFEFE) >> 1);
+                }
+            }
+        }
+        return count;
+    }
+
+    private static int check(File goldenDir, File outDir, boolean update) throws IOException {
+        int status = 0;
+        BoardRenderer renderer = new BoardRenderer();
+        for (Scene scene : SCENES) {
+            BufferedImage actual = render(renderer, scene, scene.setup.get());
+            File golden = new File(goldenDir, scene.name + ".png");
+            if (update) {
+                goldenDir.mkdirs();
+                ImageIO.write(actual, "png", golden);
+                System.out.println("updated " + golden);
+                continue;
+            }
+            if (!golden.isFile()) {
+                System.out.println("MISSING " + golden + " (run with --update)");
+                status = Math.max(status, 2);
+                continue;
+            }
+
+            BufferedImage expected = ImageIO.read(golden);
+            if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+                System.out.printf("FAIL %s: size %dx%d, expected %dx%d%n", scene.name,
+                    actual.getWidth(), actual.getHeight(), expected.getWidth(), expected.getHeight());
+                writeFailure(outDir, scene, actual, null);
+                status = Math.max(status, 1);
+                continue;
+            }
+            int differing = compare(expected, actual, null);
+            int allowed = (int) (MAX_DIFF_FRACTION * actual.getWidth() * actual.getHeight());
+            if (differing > allowed) {
+                BufferedImage diff = new BufferedImage(actual.getWidth(), actual.getHeight(), BufferedImage.TYPE_INT_RGB);
+                compare(expected, actual, diff);
+                System.out.printf("FAIL %s: %d pixels differ, %d allowed%n", scene.name, differing, allowed);
+                writeFailure(outDir, scene, actual, diff);
+                status = Math.max(status, 1);
+            } else {
+                System.out.printf("ok   %s (%d pixels differ)%n", scene.name, differing);
+            }
+        }
+        return status;
+    }
+
+    private static void writeFailure(File outDir, Scene scene, BufferedImage actual, BufferedImage diff)
+            throws IOException {
+        outDir.mkdirs();
+        ImageIO.write(actual, "png", new File(outDir, scene.name + ".actual.png"));
+        if (diff != null) {
+            ImageIO.write(diff, "png", new File(outDir, scene.name + ".diff.png"));
+        }
+    }
+
+    // Frame time percentiles and bytes allocated per frame by the rendering thread
+    private static void bench(int frames) {
+        ThreadMXBean mx = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = mx instanceof com.sun.management.ThreadMXBean
+            ? (com.sun.management.ThreadMXBean) mx : null;
+        long thread = Thread.currentThread().getId();
+
+        Scene[] scenes = Arrays.copyOf(SCENES, SCENES.length + BENCH_SCENES.length);
+        System.arraycopy(BENCH_SCENES, 0, scenes, SCENES.length, BENCH_SCENES.length);
+        long[] times = new long[frames];
+        for (Scene scene : scenes) {
+            BoardRenderer renderer = new BoardRenderer();
+            BoardRenderer.View view = scene.setup.get();
+            BufferedImage image = render(renderer, scene, view);
+            Graphics2D g = image.createGraphics();
+            g.scale(scene.scale, scene.scale);
+            for (int i = 0; i < WARMUP_FRAMES; i++) {
+                renderer.render(g, 0, 0, scene.width, scene.height, view);
+            }
+
+            long allocatedBefore = allocations != null ? allocations.getThreadAllocatedBytes(thread) : 0;
+            for (int i = 0; i < frames; i++) {
+                long start = System.nanoTime();
+                renderer.render(g, 0, 0, scene.width, scene.height, view);
+                times[i] = System.nanoTime() - start;
+            }
+            long allocated = allocations != null ? allocations.getThreadAllocatedBytes(thread) - allocatedBefore : -1;
+            g.dispose();
+
+            Arrays.sort(times);
+            System.out.printf(Locale.ROOT, "%-20s %5dx%-5d p50 %7.1f us  p99 %7.1f us  max %7.1f us  %s%n",
+                scene.name, image.getWidth(), image.getHeight(),
+                times[frames / 2] / 1e3, times[frames * 99 / 100] / 1e3, times[frames - 1] / 1e3,
+                allocated >= 0 ? (allocated / frames) + " B/frame" : "allocation n/a");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        File goldenDir = new File("golden");
+        File outDir = new File(System.getProperty("java.io.tmpdir"), "render-harness");
+        boolean update = false;
+        int benchFrames = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--golden=")) {
+                goldenDir = new File(arg.substring("--golden=".length()));
+            } else if (arg.startsWith("--out=")) {
+                outDir = new File(arg.substring("--out=".length()));
+            } else if (arg.equals("--update")) {
+                update = true;
+            } else if (arg.equals("--bench")) {
+                benchFrames = DEFAULT_BENCH_FRAMES;
+            } else if (arg.startsWith("--bench=")) {
+                benchFrames = Integer.parseInt(arg.substring("--bench=".length()));
+            } else {
+                System.err.println("Unknown option: " + arg);
+                System.exit(2);
+            }
+        }
+
+        int status = check(goldenDir, outDir, update);
+        if (benchFrames > 0) {
+            bench(benchFrames);
+        }
+        System.exit(status);
+    }
+}
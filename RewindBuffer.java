@@ -0,0 +1,150 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+// Bounded ring of game states for practice-mode undo.
+//
+// Each state is a GameSnapshot header plus one row id per board row. Rows
+// are packed into an int (3 bits per cell) and stored once in a shared,
+// reference-counted pool; a state only gets a new row where it differs from
+// the state before it, and empty rows are never stored at all. A typical
+// placement touches two to four rows, so thousands of states fit in a few
+// hundred KB. Rewinding any number of steps restores one state and moves
+// the head back, so its cost does not depend on the distance.
+class RewindBuffer {
+    private static final int CELL_BITS = 3;
+    private static final int CELL_MASK = (1 << CELL_BITS) - 1;
+    private static final int EMPTY_ROW = 0; // pool id 0 is the empty row, never freed
+
+    private final int capacity;
+    private final ByteBuffer headers;
+    private final short[] rowRefs;
+    private final boolean[] occupied;
+    private int start;
+    private int count;
+
+    // Shared row pool
+    private int[] rowValues = new int[256];
+    private int[] refCounts = new int[256];
+    private int[] freeIds = new int[256];
+    private int freeCount;
+    private int poolSize = 1;
+
+    RewindBuffer(int capacity) {
+        if (capacity < 2 || capacity * TetrisCore.HEIGHT > 0xFFFF) {
+            throw new IllegalArgumentException("Unsupported rewind capacity: " + capacity);
+        }
+        this.capacity = capacity;
+        this.headers = ByteBuffer.allocate(capacity * GameSnapshot.HEADER_SIZE);
+        this.rowRefs = new short[capacity * TetrisCore.HEIGHT];
+        this.occupied = new boolean[capacity];
+    }
+
+    int size() {
+        return count;
+    }
+
+    void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            release(slot);
+        }
+        start = 0;
+        count = 0;
+    }
+
+    // Records the core's current state as the newest entry, dropping the
+    // oldest one once the ring is full.
+    void push(TetrisCore core) {
+        int prev = count > 0 ? (start + count - 1) % capacity : -1;
+        int slot;
+        if (count < capacity) {
+            slot = (start + count) % capacity;
+            count++;
+        } else {
+            slot = start;
+            start = (start + 1) % capacity;
+        }
+        release(slot);
+
+        GameSnapshot.writeHeader(core, headers, slot * GameSnapshot.HEADER_SIZE);
+        int base = slot * TetrisCore.HEIGHT;
+        for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+            int packed = pack(core.grid[y]);
+            int id;
+            if (packed == 0) {
+                id = EMPTY_ROW;
+            } else if (prev >= 0 && rowValues[ref(prev, y)] == packed) {
+                id = ref(prev, y); // unchanged, share it
+            } else {
+                id = allocate(packed);
+            }
+            if (id != EMPTY_ROW) {
+                refCounts[id]++;
+            }
+            rowRefs[base + y] = (short) id;
+        }
+        occupied[slot] = true;
+    }
+
+    // Restores the state steps entries before the newest one and discards
+    // everything newer. Returns false if the buffer does not go back that far.
+    boolean rewind(TetrisCore core, int steps) {
+        if (steps < 0 || steps >= count) return false;
+        int target = count - 1 - steps;
+        int slot = (start + target) % capacity;
+
+        GameSnapshot.readHeader(core, headers, slot * GameSnapshot.HEADER_SIZE);
+        for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+            unpack(rowValues[ref(slot, y)], core.grid[y]);
+        }
+        // Newer slots stay allocated until push() reuses them
+        count = target + 1;
+        return true;
+    }
+
+    private int ref(int slot, int y) {
+        return rowRefs[slot * TetrisCore.HEIGHT + y] & 0xFFFF;
+    }
+
+    private void release(int slot) {
+        if (!occupied[slot]) return;
+        for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+            int id = ref(slot, y);
+            if (id != EMPTY_ROW && --refCounts[id] == 0) {
+                freeIds[freeCount++] = id;
+            }
+        }
+        occupied[slot] = false;
+    }
+
+    private int allocate(int packed) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        } else {
+            if (poolSize == rowValues.length) {
+                int grown = rowValues.length * 2;
+                rowValues = Arrays.copyOf(rowValues, grown);
+                refCounts = Arrays.copyOf(refCounts, grown);
+                freeIds = Arrays.copyOf(freeIds, grown);
+            }
+            id = poolSize++;
+        }
+        rowValues[id] = packed;
+        refCounts[id] = 0;
+        return id;
+    }
+
+    private static int pack(int[] row) {
+        int packed = 0;
+        for (int x = 0; x < TetrisCore.WIDTH; x++) {
+            packed |= row[x] << (x * CELL_BITS);
+        }
+        return packed;
+    }
+
+    private static void unpack(int packed, int[] row) {
+        for (int x = 0; x < TetrisCore.WIDTH; x++) {
+            row[x] = (packed >>> (x * CELL_BITS)) & CELL_MASK;
+        }
+    }
+}
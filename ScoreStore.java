@@ -0,0 +1,467 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Local high-score and statistics store.
+//
+// Finished games are appended as fixed-size records to a memory-mapped log.
+// Every record ends in a CRC, so a torn write after a crash or power cut is
+// caught on the next open and the log is cut back to the last good record.
+// Records are queued by the game thread and flushed in batches by a background
+// writer, so gameplay never waits on the disk. Once the log passes
+// COMPACT_THRESHOLD records it is rewritten keeping the leaderboards and the
+// most recent games; everything else is folded into one stats record per mode.
+class ScoreStore implements AutoCloseable {
+    static final int TOP_N = 100;
+
+    // Log layout
+    private static final int FILE_MAGIC = 0x42524B53; // "BRKS"
+    private static final int FILE_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 64;
+    private static final int RECORD_MARKER = 0x47524543; // "GREC"
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final byte TYPE_GAME = 1;
+    private static final byte TYPE_STATS = 2;
+
+    // Writer tuning
+    private static final int MAP_CHUNK = 1 << 20; // grow the mapping 1MB at a time
+    private static final int MAX_BATCH = 256;
+    private static final int COMPACT_THRESHOLD = 50_000;
+    private static final int KEEP_RECENT = 1_000;
+    private static final int SWAP_ATTEMPTS = 5;
+    private static final long SWAP_RETRY_MS = 100;
+
+    static final class GameRecord {
+        final int mode;
+        final int score;
+        final int level;
+        final int lines;
+        final long durationMs;
+        final long seed;
+        final long endedAt;
+
+        GameRecord(int mode, int score, int level, int lines, long durationMs, long seed, long endedAt) {
+            this.mode = mode;
+            this.score = score;
+            this.level = level;
+            this.lines = lines;
+            this.durationMs = durationMs;
+            this.seed = seed;
+            this.endedAt = endedAt;
+        }
+    }
+
+    static final class ModeStats {
+        long games;
+        long totalScore;
+        long totalLines;
+        long totalDurationMs;
+
+        ModeStats copy() {
+            ModeStats c = new ModeStats();
+            c.add(this);
+            return c;
+        }
+
+        void add(ModeStats other) {
+            games += other.games;
+            totalScore += other.totalScore;
+            totalLines += other.totalLines;
+            totalDurationMs += other.totalDurationMs;
+        }
+
+        void add(GameRecord r) {
+            games++;
+            totalScore += r.score;
+            totalLines += r.lines;
+            totalDurationMs += r.durationMs;
+        }
+    }
+
+    // Top-N scores of one mode, best first. Equal scores keep the older game
+    // ahead, so a tie never bumps an existing entry down.
+    private static final class Leaderboard {
+        final GameRecord[] entries = new GameRecord[TOP_N];
+        int size;
+
+        void offer(GameRecord r) {
+            if (size == TOP_N && r.score <= entries[size - 1].score) return;
+            int pos = size;
+            while (pos > 0 && entries[pos - 1].score < r.score) {
+                pos--;
+            }
+            int moved = Math.min(size, TOP_N - 1) - pos;
+            if (moved > 0) {
+                System.arraycopy(entries, pos, entries, pos + 1, moved);
+            }
+            entries[pos] = r;
+            if (size < TOP_N) size++;
+        }
+    }
+
+    private static final GameRecord STOP = new GameRecord(-1, 0, 0, 0, 0, 0, 0);
+
+    private final Path path;
+    private final BlockingQueue<GameRecord> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    // In-memory index, guarded by this
+    private final Map<Integer, Leaderboard> leaderboards = new HashMap<>();
+    private final Map<Integer, ModeStats> stats = new HashMap<>();
+
+    // Log state, owned by the writer thread once it has started
+    private FileChannel channel;
+    private MappedByteBuffer map;
+    private int writePos;
+    private int recordCount;
+    private int nextCompactAt = COMPACT_THRESHOLD;
+    private final ByteBuffer scratch = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    private ScoreStore(Path path) {
+        this.path = path;
+        this.writer = new Thread(this::writerLoop, "score-writer");
+        this.writer.setDaemon(true);
+    }
+
+    static ScoreStore open(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        ScoreStore store = new ScoreStore(path);
+        store.load();
+        store.writer.start();
+        return store;
+    }
+
+    // Queues a finished game. Never blocks; the leaderboard reflects it at once.
+    void record(GameRecord r) {
+        if (closed) return;
+        index(r);
+        queue.offer(r);
+    }
+
+    // Returns up to count entries starting at the 0-based rank fromRank.
+    synchronized List<GameRecord> leaderboard(GameMode mode, int fromRank, int count) {
+        Leaderboard board = leaderboards.get(mode.id);
+        List<GameRecord> result = new ArrayList<>(Math.max(0, count));
+        if (board == null) return result;
+        int end = Math.min(board.size, fromRank + count);
+        for (int i = Math.max(0, fromRank); i < end; i++) {
+            result.add(board.entries[i]);
+        }
+        return result;
+    }
+
+    synchronized int bestScore(GameMode mode) {
+        Leaderboard board = leaderboards.get(mode.id);
+        return board == null || board.size == 0 ? 0 : board.entries[0].score;
+    }
+
+    synchronized ModeStats stats(GameMode mode) {
+        ModeStats s = stats.get(mode.id);
+        return s == null ? new ModeStats() : s.copy();
+    }
+
+    // Flushes everything queued so far and releases the log.
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        queue.offer(STOP);
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized void index(GameRecord r) {
+        leaderboards.computeIfAbsent(r.mode, k -> new Leaderboard()).offer(r);
+        stats.computeIfAbsent(r.mode, k -> new ModeStats()).add(r);
+    }
+
+    private synchronized void indexStats(int mode, ModeStats folded) {
+        stats.computeIfAbsent(mode, k -> new ModeStats()).add(folded);
+    }
+
+    private void load() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, roundUp(Math.max(size, HEADER_SIZE)));
+
+        if (size < HEADER_SIZE) {
+            map.putInt(0, FILE_MAGIC);
+            map.putInt(4, FILE_VERSION);
+            writePos = HEADER_SIZE;
+            map.force();
+            return;
+        }
+        if (map.getInt(0) != FILE_MAGIC || map.getInt(4) != FILE_VERSION) {
+            channel.close();
+            throw new IOException("Not a score log: " + path);
+        }
+
+        // Replay until the first record that is missing or fails its CRC
+        int pos = HEADER_SIZE;
+        while (pos + RECORD_SIZE <= map.capacity() && readRecord(pos)) {
+            byte type = scratch.get(4);
+            int mode = scratch.get(5);
+            if (type == TYPE_GAME) {
+                index(decodeGame(mode));
+            } else if (type == TYPE_STATS) {
+                indexStats(mode, decodeStats());
+            }
+            pos += RECORD_SIZE;
+            recordCount++;
+        }
+        writePos = pos;
+
+        // Wipe whatever a crash left behind so it cannot resurface later
+        for (int i = writePos; i < map.capacity(); i++) {
+            map.put(i, (byte) 0);
+        }
+        map.force();
+        nextCompactAt = recordCount + COMPACT_THRESHOLD;
+    }
+
+    private void writerLoop() {
+        List<GameRecord> batch = new ArrayList<>(MAX_BATCH);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, MAX_BATCH - 1);
+            } catch (InterruptedException e) {
+                stopping = true;
+            }
+            try {
+                for (GameRecord r : batch) {
+                    if (r == STOP) {
+                        stopping = true;
+                    } else {
+                        encodeGame(r);
+                        append();
+                    }
+                }
+                map.force();
+                if (recordCount >= nextCompactAt) {
+                    compact();
+                }
+            } catch (IOException e) {
+                System.err.println("Score log error: " + e.getMessage());
+            }
+            batch.clear();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Score log error: " + e.getMessage());
+        }
+    }
+
+    // Appends the record currently encoded in scratch
+    private void append() throws IOException {
+        if (writePos + RECORD_SIZE > map.capacity()) {
+            map.force();
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, roundUp(writePos + RECORD_SIZE));
+        }
+        map.position(writePos);
+        map.put(scratch.array(), 0, RECORD_SIZE);
+        writePos += RECORD_SIZE;
+        recordCount++;
+    }
+
+    private void compact() throws IOException {
+        // Collect every game and every folded stats record, per mode
+        Map<Integer, List<GameRecord>> games = new HashMap<>();
+        Map<Integer, ModeStats> folded = new HashMap<>();
+        for (int pos = HEADER_SIZE; pos < writePos; pos += RECORD_SIZE) {
+            if (!readRecord(pos)) break;
+            int mode = scratch.get(5);
+            if (scratch.get(4) == TYPE_GAME) {
+                games.computeIfAbsent(mode, k -> new ArrayList<>()).add(decodeGame(mode));
+            } else {
+                folded.computeIfAbsent(mode, k -> new ModeStats()).add(decodeStats());
+            }
+        }
+
+        // Keep each mode's leaderboard and recent history, fold the rest
+        List<GameRecord> kept = new ArrayList<>();
+        for (Map.Entry<Integer, List<GameRecord>> entry : games.entrySet()) {
+            List<GameRecord> all = entry.getValue();
+            Leaderboard board = new Leaderboard();
+            for (GameRecord r : all) {
+                board.offer(r);
+            }
+            Set<GameRecord> keep = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < board.size; i++) {
+                keep.add(board.entries[i]);
+            }
+            keep.addAll(all.subList(Math.max(0, all.size() - KEEP_RECENT), all.size()));
+
+            ModeStats rest = folded.computeIfAbsent(entry.getKey(), k -> new ModeStats());
+            for (GameRecord r : all) {
+                if (keep.contains(r)) {
+                    kept.add(r);
+                } else {
+                    rest.add(r);
+                }
+            }
+        }
+
+        // Write the compacted log beside the live one, then swap it in
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        int count = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(0, FILE_MAGIC);
+            header.putInt(4, FILE_VERSION);
+            writeFully(out, header);
+            for (Map.Entry<Integer, ModeStats> entry : folded.entrySet()) {
+                if (entry.getValue().games == 0) continue;
+                encodeStats(entry.getKey(), entry.getValue());
+                scratch.clear();
+                writeFully(out, scratch);
+                count++;
+            }
+            kept.sort((a, b) -> Long.compare(a.endedAt, b.endedAt));
+            for (GameRecord r : kept) {
+                encodeGame(r);
+                scratch.clear();
+                writeFully(out, scratch);
+                count++;
+            }
+            out.force(true);
+        }
+
+        // Java cannot unmap a MappedByteBuffer; the mapping goes away only once
+        // the buffer is garbage collected. Windows will not replace a file that
+        // is still mapped, so drop the map, ask for a collection and retry. If
+        // the swap still fails we keep appending to the old log and try again
+        // after another COMPACT_THRESHOLD records, so on such a system the log
+        // can keep growing until a collection happens to release the mapping.
+        map.force();
+        map = null;
+        channel.close();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                writePos = HEADER_SIZE + count * RECORD_SIZE;
+                recordCount = count;
+                break;
+            } catch (IOException e) {
+                if (attempt == SWAP_ATTEMPTS || !awaitUnmap()) {
+                    System.err.println("Score log compaction failed: " + e.getMessage());
+                    Files.deleteIfExists(tmp);
+                    break;
+                }
+            }
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map = channel.map(FileChannel.MapMode.READ_WRITE, 0, roundUp(Math.max(channel.size(), writePos)));
+        nextCompactAt = recordCount + COMPACT_THRESHOLD;
+    }
+
+    // Gives the collector a chance to release dropped mappings; false if interrupted
+    private static boolean awaitUnmap() {
+        System.gc();
+        try {
+            Thread.sleep(SWAP_RETRY_MS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+
+    // Copies the record at pos into scratch; false if it is absent or torn
+    private boolean readRecord(int pos) {
+        map.position(pos);
+        map.get(scratch.array(), 0, RECORD_SIZE);
+        if (scratch.getInt(0) != RECORD_MARKER) return false;
+        crc.reset();
+        crc.update(scratch.array(), 0, CRC_OFFSET);
+        return scratch.getInt(CRC_OFFSET) == (int) crc.getValue();
+    }
+
+    private GameRecord decodeGame(int mode) {
+        return new GameRecord(mode, scratch.getInt(40), scratch.getInt(44), scratch.getInt(48),
+                scratch.getLong(24), scratch.getLong(8), scratch.getLong(16));
+    }
+
+    private ModeStats decodeStats() {
+        ModeStats s = new ModeStats();
+        s.games = scratch.getLong(8);
+        s.totalScore = scratch.getLong(16);
+        s.totalLines = scratch.getLong(24);
+        s.totalDurationMs = scratch.getLong(32);
+        return s;
+    }
+
+    private void encodeGame(GameRecord r) {
+        beginRecord(TYPE_GAME, r.mode);
+        scratch.putLong(8, r.seed);
+        scratch.putLong(16, r.endedAt);
+        scratch.putLong(24, r.durationMs);
+        scratch.putInt(40, r.score);
+        scratch.putInt(44, r.level);
+        scratch.putInt(48, r.lines);
+        endRecord();
+    }
+
+    private void encodeStats(int mode, ModeStats s) {
+        beginRecord(TYPE_STATS, mode);
+        scratch.putLong(8, s.games);
+        scratch.putLong(16, s.totalScore);
+        scratch.putLong(24, s.totalLines);
+        scratch.putLong(32, s.totalDurationMs);
+        endRecord();
+    }
+
+    private void beginRecord(byte type, int mode) {
+        Arrays.fill(scratch.array(), (byte) 0);
+        scratch.putInt(0, RECORD_MARKER);
+        scratch.put(4, type);
+        scratch.put(5, (byte) mode);
+    }
+
+    private void endRecord() {
+        crc.reset();
+        crc.update(scratch.array(), 0, CRC_OFFSET);
+        scratch.putInt(CRC_OFFSET, (int) crc.getValue());
+    }
+
+    private static int roundUp(long size) {
+        long chunks = (size + MAP_CHUNK - 1) / MAP_CHUNK;
+        return (int) (Math.max(1, chunks) * MAP_CHUNK);
+    }
+}
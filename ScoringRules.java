@@ -0,0 +1,150 @@
+import java.util.HashMap;
+import java.util.Map;
+
+// Points for each lock, built from a small text table:
+//
+//   clear    <0 lines> <1> <2> <3> <4>   ordinary locks
+//   mini     <0 lines> <1> <2> <3> <4>   mini T-spins
+//   tspin    <0 lines> <1> <2> <3> <4>   T-spins
+//   perfect  <0 lines> <1> <2> <3> <4>   bonus when the clear empties the board
+//   combo    <points>                   times the number of clears in a row
+//   b2b      <multiplier>               on a back-to-back difficult clear, e.g. "3/2"
+//   soft     <points per row>           soft drop
+//   hard     <points per row>           hard drop
+//
+// Everything except drop points is multiplied by the level before the
+// clear. A tetris or a T-spin that clears lines is "difficult"; two in a
+// row, with only spins or non-clearing locks in between, earn the b2b
+// multiplier. A table without mini or tspin rows scores spins as ordinary
+// clears; any other row left out scores nothing.
+final class ScoringRules {
+    static final int SPIN_NONE = 0;
+    static final int SPIN_MINI = 1;
+    static final int SPIN_FULL = 2;
+
+    private static final String[] SPIN_ROWS = {"clear", "mini", "tspin"}; // by spin
+    private static final int MAX_LINES = 4;
+
+    // The original scoring: line clears only
+    static final ScoringRules CLASSIC = parse("classic",
+        "clear    0  100  300  500  800\n");
+
+    // Modern guideline scoring
+    static final ScoringRules GUIDELINE = parse("guideline",
+        "clear      0   100   300   500   800\n" +
+        "mini     100   200   400     0     0\n" +
+        "tspin    400   800  1200  1600     0\n" +
+        "perfect    0   800  1200  1800  2000\n" +
+        "combo     50\n" +
+        "b2b      3/2\n" +
+        "soft       1\n" +
+        "hard       2\n");
+
+    final String name;
+    private final int[][] linePoints; // [spin][lines]
+    private final int[] perfectPoints;
+    private final int comboPoints;
+    private final int b2bNumerator;
+    private final int b2bDenominator;
+    final int softDropPoints;
+    final int hardDropPoints;
+
+    private ScoringRules(String name, int[][] linePoints, int[] perfectPoints, int comboPoints,
+                         int b2bNumerator, int b2bDenominator, int softDropPoints, int hardDropPoints) {
+        this.name = name;
+        this.linePoints = linePoints;
+        this.perfectPoints = perfectPoints;
+        this.comboPoints = comboPoints;
+        this.b2bNumerator = b2bNumerator;
+        this.b2bDenominator = b2bDenominator;
+        this.softDropPoints = softDropPoints;
+        this.hardDropPoints = hardDropPoints;
+    }
+
+    static boolean isDifficult(int spin, int lines) {
+        return lines == MAX_LINES || (lines > 0 && spin != SPIN_NONE);
+    }
+
+    // Base points for a lock, before the level multiplier
+    int clearPoints(int spin, int lines, boolean backToBack) {
+        int points = linePoints[spin][lines];
+        return backToBack ? points * b2bNumerator / b2bDenominator : points;
+    }
+
+    // combo is the number of clears in a row before this one
+    int comboPoints(int combo) {
+        return combo * comboPoints;
+    }
+
+    int perfectPoints(int lines) {
+        return perfectPoints[lines];
+    }
+
+    static ScoringRules parse(String name, String table) {
+        Map<String, String[]> rows = new HashMap<>();
+        for (String line : table.split("\n")) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] fields = line.split("\\s+");
+            if (rows.put(fields[0], fields) != null) {
+                throw new IllegalArgumentException(name + ": duplicate row \"" + fields[0] + "\"");
+            }
+        }
+
+        try {
+            int[][] linePoints = new int[SPIN_ROWS.length][];
+            for (int spin = 0; spin < SPIN_ROWS.length; spin++) {
+                String[] row = rows.remove(SPIN_ROWS[spin]);
+                linePoints[spin] = row == null && spin != SPIN_NONE ? linePoints[SPIN_NONE] : lineRow(name, row);
+            }
+            int[] perfectPoints = lineRow(name, rows.remove("perfect"));
+            int comboPoints = single(name, rows.remove("combo"));
+            int softDropPoints = single(name, rows.remove("soft"));
+            int hardDropPoints = single(name, rows.remove("hard"));
+
+            String[] b2b = rows.remove("b2b");
+            int b2bNumerator = 1;
+            int b2bDenominator = 1;
+            if (b2b != null) {
+                if (b2b.length != 2) {
+                    throw new IllegalArgumentException(name + ": expected 1 value for b2b");
+                }
+                String text = b2b[1];
+                int slash = text.indexOf('/');
+                b2bNumerator = Integer.parseInt(slash < 0 ? text : text.substring(0, slash));
+                b2bDenominator = slash < 0 ? 1 : Integer.parseInt(text.substring(slash + 1));
+                if (b2bNumerator <= 0 || b2bDenominator <= 0) {
+                    throw new IllegalArgumentException(name + ": b2b multiplier must be positive");
+                }
+            }
+
+            if (!rows.isEmpty()) {
+                throw new IllegalArgumentException(name + ": unknown row \"" + rows.keySet().iterator().next() + "\"");
+            }
+            return new ScoringRules(name, linePoints, perfectPoints, comboPoints,
+                b2bNumerator, b2bDenominator, softDropPoints, hardDropPoints);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + ": bad number", e);
+        }
+    }
+
+    private static int[] lineRow(String name, String[] fields) {
+        int[] points = new int[MAX_LINES + 1];
+        if (fields == null) return points;
+        if (fields.length != points.length + 1) {
+            throw new IllegalArgumentException(name + ": expected " + points.length + " values for " + fields[0]);
+        }
+        for (int lines = 0; lines < points.length; lines++) {
+            points[lines] = Integer.parseInt(fields[lines + 1]);
+        }
+        return points;
+    }
+
+    private static int single(String name, String[] fields) {
+        if (fields == null) return 0;
+        if (fields.length != 2) {
+            throw new IllegalArgumentException(name + ": expected 1 value for " + fields[0]);
+        }
+        return Integer.parseInt(fields[1]);
+    }
+}
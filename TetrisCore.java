@@ -0,0 +1,411 @@
+import java.util.Arrays;
+
+// Game rules without any window, timer or sound: the board, the falling and
+// preview pieces, scoring and the piece RNG. BrickGameTetris drives one of
+// these from the keyboard and timer and draws it; snapshots save and restore it.
+class TetrisCore {
+    static final int WIDTH = 10;
+    static final int HEIGHT = 20;
+    static final int COLOR_COUNT = 7; // block colours are 1..7, 0 is empty
+
+    // advance() results
+    static final int FELL = 1;
+    static final int LOCK = 2;
+
+    private static final long ROW_UNIT = (long) GravityCurve.G * 1_000_000_000L;
+    private static final long MAX_STEP_NANOS = 1_000_000_000L;
+    private static final int MAX_LOCK_RESETS = 15;
+
+    static final int[][][] TETROMINOS = {
+        {{1, 1, 1, 1}}, // I
+        {{1, 1}, {1, 1}}, // O
+        {{1, 1, 1}, {0, 1, 0}}, // T
+        {{1, 1, 1}, {1, 0, 0}}, // L
+        {{1, 1, 1}, {0, 0, 1}}, // J
+        {{1, 1, 0}, {0, 1, 1}}, // Z
+        {{0, 1, 1}, {1, 1, 0}}  // S
+    };
+
+    // All four clockwise rotations of every piece, so rotating never allocates
+    static final int[][][][] ROTATIONS = buildRotations();
+
+    // The T's centre cell and the direction its nub points, per rotation,
+    // for the three-corner T-spin check
+    static final int T_PIECE = 2;
+    private static final int[][] T_CENTER = new int[4][];
+    private static final int[][] T_NUB = new int[4][];
+    static {
+        buildTShape();
+    }
+
+    final int[][] grid = new int[HEIGHT][WIDTH];
+    int[][] currentPiece;
+    int currentType = -1;
+    int currentRotation;
+    int currentX, currentY, currentColor;
+    int[][] nextPiece;
+    int nextType;
+    int nextPieceColor;
+    int score = 0;
+    int level = 1;
+    int linesCleared = 0;
+
+    // Scoring state: clears in a row (-1 = none), whether the last clear was
+    // difficult, whether the piece's last successful move was a rotation,
+    // and the number of filled cells, so a perfect clear needs no scan
+    int combo = -1;
+    boolean backToBack;
+    boolean lastMoveRotation;
+    int filledCells;
+
+    // Gravity state: sub-row progress and time spent resting on the stack
+    long gravityAccumulator;
+    long lockNanos;
+    int lockResets;
+
+    GameMode mode = GameMode.MARATHON;
+    long seed;
+    long playTimeMs; // carried through snapshots for the score log
+    final GameRandom random = new GameRandom(0);
+
+    void reset(GameMode mode, long seed) {
+        this.mode = mode;
+        this.seed = seed;
+        random.setSeed(seed);
+        for (int[] row : grid) {
+            Arrays.fill(row, 0);
+        }
+        currentPiece = null;
+        currentType = -1;
+        score = 0;
+        linesCleared = 0;
+        level = 1;
+        combo = -1;
+        backToBack = false;
+        lastMoveRotation = false;
+        filledCells = 0;
+        gravityAccumulator = 0;
+        playTimeMs = 0;
+        generateNextPiece();
+    }
+
+    private void generateNextPiece() {
+        nextType = random.nextInt(TETROMINOS.length);
+        nextPiece = ROTATIONS[nextType][0];
+        nextPieceColor = 1 + random.nextInt(COLOR_COUNT);
+    }
+
+    // Promotes the preview piece. Returns false if it has nowhere to spawn.
+    boolean newPiece() {
+        setCurrent(nextType, 0);
+        currentColor = nextPieceColor;
+        currentX = WIDTH / 2 - currentPiece[0].length / 2;
+        currentY = 0;
+        lockNanos = 0;
+        lockResets = 0;
+        lastMoveRotation = false;
+
+        generateNextPiece();
+        return !collision();
+    }
+
+    void setCurrent(int type, int rotation) {
+        currentType = type;
+        currentRotation = rotation;
+        currentPiece = ROTATIONS[type][rotation];
+    }
+
+    void setNext(int type, int color) {
+        nextType = type;
+        nextPiece = ROTATIONS[type][0];
+        nextPieceColor = color;
+    }
+
+    boolean collision() {
+        for (int y = 0; y < currentPiece.length; y++) {
+            for (int x = 0; x < currentPiece[y].length; x++) {
+                if (currentPiece[y][x] != 0) {
+                    int newX = currentX + x;
+                    int newY = currentY + y;
+
+                    if (newX < 0 || newX >= WIDTH || newY >= HEIGHT) {
+                        return true;
+                    }
+
+                    if (newY >= 0 && grid[newY][newX] != 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    // Applies elapsedNanos of the mode's gravity to the falling piece.
+    // Returns FELL if it dropped at least one row and LOCK once it has
+    // rested on the stack for the level's lock delay.
+    int advance(long elapsedNanos) {
+        GravityCurve curve = mode.gravity;
+        int result = 0;
+
+        gravityAccumulator += Math.min(elapsedNanos, MAX_STEP_NANOS)
+            * curve.gravity(level) * GravityCurve.FRAMES_PER_SECOND;
+        long rows = gravityAccumulator / ROW_UNIT;
+        gravityAccumulator -= rows * ROW_UNIT;
+        if (curve.gravity(level) >= GravityCurve.INSTANT) {
+            rows = HEIGHT; // 20G: straight to the stack, however short the step
+        }
+        while (rows > 0 && moveDown()) {
+            rows--;
+            result |= FELL;
+        }
+
+        if (isGrounded()) {
+            gravityAccumulator = 0;
+            if ((result & FELL) != 0) {
+                lockNanos = 0; // Just landed
+            } else {
+                lockNanos += elapsedNanos;
+            }
+            if (lockNanos >= curve.lockDelayNanos(level)) {
+                result |= LOCK;
+            }
+        } else {
+            lockNanos = 0;
+        }
+        return result;
+    }
+
+    boolean isGrounded() {
+        currentY++;
+        boolean grounded = collision();
+        currentY--;
+        return grounded;
+    }
+
+    // A move or rotation on the stack restarts the lock delay, a limited
+    // number of times per piece
+    private void resetLockDelay() {
+        if (lockNanos > 0 && lockResets < MAX_LOCK_RESETS) {
+            lockNanos = 0;
+            lockResets++;
+        }
+    }
+
+    boolean moveDown() {
+        currentY++;
+        if (collision()) {
+            currentY--;
+            return false;
+        }
+        lastMoveRotation = false;
+        return true;
+    }
+
+    // Player-driven moveDown(), worth the mode's soft drop points
+    boolean softDrop() {
+        if (!moveDown()) return false;
+        score += mode.scoring.softDropPoints;
+        return true;
+    }
+
+    // Drops the piece onto the stack and returns the rows it fell; the
+    // caller locks it
+    int hardDrop() {
+        int rows = 0;
+        while (moveDown()) {
+            rows++;
+        }
+        score += rows * mode.scoring.hardDropPoints;
+        return rows;
+    }
+
+    boolean moveLeft() {
+        currentX--;
+        if (collision()) {
+            currentX++;
+            return false;
+        }
+        lastMoveRotation = false;
+        resetLockDelay();
+        return true;
+    }
+
+    boolean moveRight() {
+        currentX++;
+        if (collision()) {
+            currentX--;
+            return false;
+        }
+        lastMoveRotation = false;
+        resetLockDelay();
+        return true;
+    }
+
+    boolean rotate() {
+        int oldRotation = currentRotation;
+        setCurrent(currentType, (currentRotation + 1) & 3);
+        if (collision()) {
+            setCurrent(currentType, oldRotation);
+            return false;
+        }
+        lastMoveRotation = true;
+        resetLockDelay();
+        return true;
+    }
+
+    void mergePiece() {
+        for (int y = 0; y < currentPiece.length; y++) {
+            for (int x = 0; x < currentPiece[y].length; x++) {
+                if (currentPiece[y][x] != 0) {
+                    grid[currentY + y][currentX + x] = currentColor;
+                    filledCells++;
+                }
+            }
+        }
+    }
+
+    // Removes full rows and updates score, lines and level. Called after
+    // mergePiece(), so only the rows the piece landed in can have filled up.
+    // Returns the number of rows removed.
+    int clearLines() {
+        int spin = detectSpin();
+        int linesRemoved = 0;
+        int top = Math.max(0, currentY);
+        int bottom = Math.min(HEIGHT - 1, currentY + currentPiece.length - 1);
+
+        for (int y = bottom; y >= top; y--) {
+            boolean fullLine = true;
+            for (int x = 0; x < WIDTH; x++) {
+                if (grid[y][x] == 0) {
+                    fullLine = false;
+                    break;
+                }
+            }
+
+            if (fullLine) {
+                // Move all lines above down, recycling the cleared row as the new top
+                int[] cleared = grid[y];
+                for (int yy = y; yy > 0; yy--) {
+                    grid[yy] = grid[yy - 1];
+                }
+                Arrays.fill(cleared, 0);
+                grid[0] = cleared;
+                filledCells -= WIDTH;
+                linesRemoved++;
+                y++; // Check the same line again
+                top++; // The piece's remaining rows moved down with it
+            }
+        }
+
+        score += calculateScore(spin, linesRemoved);
+        if (linesRemoved > 0) {
+            linesCleared += linesRemoved;
+
+            // Increase level every 10 lines
+            level = Math.max(level, 1 + (linesCleared / 10));
+        }
+        return linesRemoved;
+    }
+
+    // Scores one lock with the mode's rules and advances combo and back-to-back
+    private int calculateScore(int spin, int lines) {
+        ScoringRules rules = mode.scoring;
+        if (lines == 0) {
+            combo = -1;
+            return rules.clearPoints(spin, 0, false) * level;
+        }
+
+        boolean difficult = ScoringRules.isDifficult(spin, lines);
+        int points = rules.clearPoints(spin, lines, difficult && backToBack);
+        backToBack = difficult;
+        combo++;
+        points += rules.comboPoints(combo);
+        if (filledCells == 0) {
+            points += rules.perfectPoints(lines);
+        }
+        return points * level;
+    }
+
+    // Three-corner rule: a T locked straight after a rotation with three of
+    // the four cells diagonal to its centre blocked (walls and floor count)
+    // is a T-spin, or a mini T-spin unless both corners beside its nub are
+    // blocked. Four cell lookups, no grid scan.
+    private int detectSpin() {
+        if (currentType != T_PIECE || !lastMoveRotation) return ScoringRules.SPIN_NONE;
+        int cx = currentX + T_CENTER[currentRotation][0];
+        int cy = currentY + T_CENTER[currentRotation][1];
+        int nubX = T_NUB[currentRotation][0];
+        int nubY = T_NUB[currentRotation][1];
+
+        int corners = 0;
+        int front = 0;
+        for (int dy = -1; dy <= 1; dy += 2) {
+            for (int dx = -1; dx <= 1; dx += 2) {
+                if (blocked(cx + dx, cy + dy)) {
+                    corners++;
+                    if (dx * nubX + dy * nubY > 0) front++;
+                }
+            }
+        }
+        if (corners < 3) return ScoringRules.SPIN_NONE;
+        return front == 2 ? ScoringRules.SPIN_FULL : ScoringRules.SPIN_MINI;
+    }
+
+    private boolean blocked(int x, int y) {
+        if (x < 0 || x >= WIDTH || y >= HEIGHT) return true;
+        return y >= 0 && grid[y][x] != 0;
+    }
+
+    private static int[][][][] buildRotations() {
+        int[][][][] rotations = new int[TETROMINOS.length][4][][];
+        for (int type = 0; type < TETROMINOS.length; type++) {
+            int[][] piece = TETROMINOS[type];
+            for (int r = 0; r < 4; r++) {
+                rotations[type][r] = piece;
+                piece = rotateClockwise(piece);
+            }
+        }
+        return rotations;
+    }
+
+    private static void buildTShape() {
+        int[][] dirs = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+        for (int r = 0; r < 4; r++) {
+            int[][] t = ROTATIONS[T_PIECE][r];
+            for (int y = 0; y < t.length; y++) {
+                for (int x = 0; x < t[y].length; x++) {
+                    // The centre is the cell with three neighbours; the nub is
+                    // the one whose opposite side is empty
+                    int neighbours = 0;
+                    int[] missing = null;
+                    for (int[] d : dirs) {
+                        if (filled(t, x + d[0], y + d[1])) {
+                            neighbours++;
+                        } else {
+                            missing = d;
+                        }
+                    }
+                    if (t[y][x] != 0 && neighbours == 3) {
+                        T_CENTER[r] = new int[] {x, y};
+                        T_NUB[r] = new int[] {-missing[0], -missing[1]};
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean filled(int[][] piece, int x, int y) {
+        return y >= 0 && y < piece.length && x >= 0 && x < piece[y].length && piece[y][x] != 0;
+    }
+
+    private static int[][] rotateClockwise(int[][] piece) {
+        int[][] rotated = new int[piece[0].length][piece.length];
+        for (int y = 0; y < piece.length; y++) {
+            for (int x = 0; x < piece[y].length; x++) {
+                rotated[x][piece.length - 1 - y] = piece[y][x];
+            }
+        }
+        return rotated;
+    }
+}
@@ -0,0 +1,101 @@
+import java.nio.ByteBuffer;
+
+// Placement-level environment over TetrisCore for training agents.
+//
+// One step places the current piece: the action picks a rotation and the
+// column of the piece's left edge, the piece is dropped straight down from
+// the top row and locked, and the next piece spawns. Gravity, lock delay and
+// input timing play no part. The reward is the score gained by the
+// placement. An action that does not fit at the top of the board (off the
+// side, overlapping the stack, or not an action at all) ends the episode
+// with no reward, as does a blocked spawn. Trainers are untrusted input, so
+// a bad action never throws.
+class TetrisEnv {
+    static final int ROTATIONS = 4;
+    static final int ACTIONS = ROTATIONS * TetrisCore.WIDTH;
+
+    // Observation layout, in little-endian ints. Rows hold one bit per
+    // column (bit x set if column x is filled), top row first.
+    static final int OBS_ROWS = 0;
+    static final int OBS_CURRENT = TetrisCore.HEIGHT;
+    static final int OBS_NEXT = OBS_CURRENT + 1;
+    static final int OBS_SCORE = OBS_CURRENT + 2;
+    static final int OBS_LINES = OBS_CURRENT + 3;
+    static final int OBS_LEVEL = OBS_CURRENT + 4;
+    static final int OBS_REWARD = OBS_CURRENT + 5;
+    static final int OBS_DONE = OBS_CURRENT + 6;
+    static final int OBS_INTS = OBS_CURRENT + 7;
+    static final int OBS_BYTES = OBS_INTS * 4;
+
+    final TetrisCore core = new TetrisCore();
+    private final GameMode mode;
+    boolean done;
+    int reward;
+
+    TetrisEnv(GameMode mode) {
+        this.mode = mode;
+    }
+
+    void reset(long seed) {
+        core.reset(mode, seed);
+        core.newPiece();
+        done = false;
+        reward = 0;
+    }
+
+    static int action(int rotation, int column) {
+        return rotation * TetrisCore.WIDTH + column;
+    }
+
+    // Places the current piece and returns the score it earned
+    int step(int action) {
+        if (done) {
+            throw new IllegalStateException("Episode is over, reset first");
+        }
+        if (action < 0 || action >= ACTIONS) {
+            done = true;
+            reward = 0;
+            return 0;
+        }
+        int before = core.score;
+        core.setCurrent(core.currentType, action / TetrisCore.WIDTH);
+        core.currentX = action % TetrisCore.WIDTH;
+        core.currentY = 0;
+        if (core.collision()) {
+            done = true;
+            reward = 0;
+            return 0;
+        }
+
+        while (core.moveDown()) {
+            // Hard drop
+        }
+        core.mergePiece();
+        core.clearLines();
+        if (!core.newPiece()) {
+            done = true;
+        }
+        reward = core.score - before;
+        return reward;
+    }
+
+    // Writes the observation at offset with absolute puts; out must be little-endian
+    void observe(ByteBuffer out, int offset) {
+        int[][] grid = core.grid;
+        for (int y = 0; y < TetrisCore.HEIGHT; y++) {
+            int[] row = grid[y];
+            int bits = 0;
+            for (int x = 0; x < TetrisCore.WIDTH; x++) {
+                if (row[x] != 0) bits |= 1 << x;
+            }
+            out.putInt(offset + (OBS_ROWS + y) * 4, bits);
+        }
+        out.putInt(offset + OBS_CURRENT * 4, core.currentType);
+        out.putInt(offset + OBS_NEXT * 4, core.nextType);
+        out.putInt(offset + OBS_SCORE * 4, core.score);
+        out.putInt(offset + OBS_LINES * 4, core.linesCleared);
+        out.putInt(offset + OBS_LEVEL * 4, core.level);
+        out.putInt(offset + OBS_REWARD * 4, reward);
+        out.putInt(offset + OBS_DONE * 4, done ? 1 : 0);
+    }
+}
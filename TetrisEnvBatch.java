@@ -0,0 +1,151 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Steps many TetrisEnvs at once for vectorized training.
+//
+// Actions and observations live in two preallocated direct buffers, one
+// byte per env in actions() and TetrisEnv.OBS_BYTES per env in
+// observations(), so a step allocates nothing per env and the buffers can be
+// handed to native code or a socket as they are. Envs are split into fixed
+// slices stepped in parallel on a worker pool.
+//
+// Finished envs reset themselves within the same step: their slot then holds
+// the first observation of the new episode, with REWARD and DONE still
+// describing the step that ended the old one. Env i's k-th episode uses seed
+// baseSeed + i + k * size(), so a batch is reproducible whatever the thread
+// count. A new batch starts out reset with base seed 0.
+class TetrisEnvBatch implements AutoCloseable {
+    private final TetrisEnv[] envs;
+    private final long[] nextSeed;
+    private final ByteBuffer actions;
+    private final ByteBuffer observations;
+    private final ExecutorService workers;
+    private final List<Callable<Void>> stepSlices = new ArrayList<>();
+    private final List<Callable<Void>> resetSlices = new ArrayList<>();
+    private long baseSeed;
+
+    TetrisEnvBatch(int size, GameMode mode, int threads) {
+        if (size < 1 || threads < 1) {
+            throw new IllegalArgumentException("Need at least one env and one thread");
+        }
+        envs = new TetrisEnv[size];
+        for (int i = 0; i < size; i++) {
+            envs[i] = new TetrisEnv(mode);
+        }
+        nextSeed = new long[size];
+        actions = ByteBuffer.allocateDirect(size);
+        observations = ByteBuffer.allocateDirect(size * TetrisEnv.OBS_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        threads = Math.min(threads, size);
+        workers = threads > 1 ? Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "env-worker");
+            t.setDaemon(true);
+            return t;
+        }) : null;
+        for (int t = 0; t < threads; t++) {
+            int from = (int) ((long) size * t / threads);
+            int to = (int) ((long) size * (t + 1) / threads);
+            stepSlices.add(() -> {
+                stepRange(from, to);
+                return null;
+            });
+            resetSlices.add(() -> {
+                resetRange(from, to);
+                return null;
+            });
+        }
+        // Start reset so a step before the first reset() has pieces to place
+        reset(0);
+    }
+
+    int size() {
+        return envs.length;
+    }
+
+    // One action byte per env, filled in by the caller before step()
+    ByteBuffer actions() {
+        return actions;
+    }
+
+    ByteBuffer observations() {
+        return observations;
+    }
+
+    void reset(long seed) {
+        baseSeed = seed;
+        run(resetSlices);
+    }
+
+    void step() {
+        run(stepSlices);
+    }
+
+    private void resetRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            nextSeed[i] = baseSeed + i;
+            resetEnv(i);
+            envs[i].observe(observations, i * TetrisEnv.OBS_BYTES);
+        }
+    }
+
+    private void stepRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            TetrisEnv env = envs[i];
+            int reward = env.step(actions.get(i) & 0xFF);
+            int offset = i * TetrisEnv.OBS_BYTES;
+            if (env.done) {
+                resetEnv(i);
+                env.observe(observations, offset);
+                observations.putInt(offset + TetrisEnv.OBS_REWARD * 4, reward);
+                observations.putInt(offset + TetrisEnv.OBS_DONE * 4, 1);
+            } else {
+                env.observe(observations, offset);
+            }
+        }
+    }
+
+    private void resetEnv(int i) {
+        envs[i].reset(nextSeed[i]);
+        nextSeed[i] += envs.length;
+    }
+
+    private void run(List<Callable<Void>> slices) {
+        if (workers == null) {
+            try {
+                slices.get(0).call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return;
+        }
+        try {
+            for (Future<Void> f : workers.invokeAll(slices)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while stepping", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Override
+    public void close() {
+        if (workers != null) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+
+// Lets an external trainer drive a TetrisEnvBatch over stdin/stdout, or over
+// a loopback socket with --port.
+//
+// Usage: java TetrisEnvBridge [--envs=N] [--threads=N] [--mode=NAME] [--port=N]
+//        java TetrisEnvBridge [--envs=N] [--threads=N] --bench=SECONDS
+//
+// Protocol, all little-endian. On connect the bridge sends five ints:
+// MAGIC, VERSION, env count, TetrisEnv.ACTIONS and TetrisEnv.OBS_INTS.
+// Then each request is one command byte:
+//   'R' + long seed      resets every env; replies with all observations
+//   'S' + one byte/env   steps every env; replies with all observations
+//   'Q'                  ends the session
+// The envs start out reset with seed 0, so stepping before any 'R' is valid.
+// Observations are env count * TetrisEnv.OBS_BYTES bytes, laid out as
+// described in TetrisEnv. Diagnostics go to stderr so stdout stays binary.
+class TetrisEnvBridge {
+    static final int MAGIC = 0x454B5242; // "BRKE" little-endian
+    static final int VERSION = 1;
+
+    static final byte CMD_RESET = 'R';
+    static final byte CMD_STEP = 'S';
+    static final byte CMD_QUIT = 'Q';
+
+    private final TetrisEnvBatch batch;
+    private final ByteBuffer command = ByteBuffer.allocateDirect(9).order(ByteOrder.LITTLE_ENDIAN);
+    private final ByteBuffer observations;
+
+    TetrisEnvBridge(TetrisEnvBatch batch) {
+        this.batch = batch;
+        this.observations = batch.observations().duplicate();
+    }
+
+    // Serves one trainer until it quits or disconnects
+    void serve(ReadableByteChannel in, WritableByteChannel out) throws IOException {
+        ByteBuffer hello = ByteBuffer.allocate(20).order(ByteOrder.LITTLE_ENDIAN);
+        hello.putInt(MAGIC).putInt(VERSION).putInt(batch.size())
+            .putInt(TetrisEnv.ACTIONS).putInt(TetrisEnv.OBS_INTS).flip();
+        writeFully(out, hello);
+
+        while (true) {
+            command.clear().limit(1);
+            if (in.read(command) < 0) return;
+            readFully(in, command);
+            switch (command.get(0)) {
+                case CMD_RESET:
+                    command.limit(9);
+                    readFully(in, command);
+                    batch.reset(command.getLong(1));
+                    break;
+                case CMD_STEP:
+                    ByteBuffer actions = batch.actions();
+                    actions.clear();
+                    readFully(in, actions);
+                    batch.step();
+                    break;
+                case CMD_QUIT:
+                    return;
+                default:
+                    throw new IOException("Unknown command " + command.get(0));
+            }
+            observations.clear();
+            writeFully(out, observations);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel in, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (in.read(buf) < 0) throw new EOFException();
+        }
+    }
+
+    private static void writeFully(WritableByteChannel out, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            out.write(buf);
+        }
+    }
+
+    // Steps the batch with random placements that fit the board and reports throughput
+    static void bench(TetrisEnvBatch batch, int seconds) {
+        ByteBuffer actions = batch.actions();
+        ByteBuffer obs = batch.observations();
+        int size = batch.size();
+        int random = 0x9E3779B9;
+        long steps = 0;
+        long episodes = 0;
+
+        batch.reset(1);
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long now;
+        do {
+            for (int i = 0; i < size; i++) {
+                random ^= random << 13;
+                random ^= random >>> 17;
+                random ^= random << 5;
+                int type = obs.getInt(i * TetrisEnv.OBS_BYTES + TetrisEnv.OBS_CURRENT * 4);
+                int rotation = random & 3;
+                int width = TetrisCore.ROTATIONS[type][rotation][0].length;
+                int column = (random >>> 2) % (TetrisCore.WIDTH - width + 1);
+                actions.put(i, (byte) TetrisEnv.action(rotation, column));
+            }
+            batch.step();
+            steps += size;
+            for (int i = 0; i < size; i++) {
+                episodes += obs.getInt(i * TetrisEnv.OBS_BYTES + TetrisEnv.OBS_DONE * 4);
+            }
+            now = System.nanoTime();
+        } while (now < end);
+
+        double elapsed = (now - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%d envs: %.0f steps/s, %d steps, %d episodes finished%n",
+            size, steps / elapsed, steps, episodes);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int envs = 1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        GameMode mode = GameMode.MARATHON;
+        int port = -1;
+        int benchSeconds = -1;
+        for (String arg : args) {
+            if (arg.startsWith("--envs=")) {
+                envs = Integer.parseInt(arg.substring("--envs=".length()));
+            } else if (arg.startsWith("--threads=")) {
+                threads = Integer.parseInt(arg.substring("--threads=".length()));
+            } else if (arg.startsWith("--mode=")) {
+                mode = GameMode.valueOf(arg.substring("--mode=".length()).toUpperCase(Locale.ROOT));
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--bench=")) {
+                benchSeconds = Integer.parseInt(arg.substring("--bench=".length()));
+            } else {
+                System.err.println("Unknown option: " + arg);
+                System.exit(2);
+            }
+        }
+
+        try (TetrisEnvBatch batch = new TetrisEnvBatch(envs, mode, threads)) {
+            if (benchSeconds >= 0) {
+                bench(batch, benchSeconds);
+                return;
+            }
+            TetrisEnvBridge bridge = new TetrisEnvBridge(batch);
+            if (port < 0) {
+                bridge.serve(new FileInputStream(FileDescriptor.in).getChannel(),
+                    new FileOutputStream(FileDescriptor.out).getChannel());
+                return;
+            }
+            try (ServerSocketChannel server = ServerSocketChannel.open()) {
+                server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+                System.err.println("Environment bridge on port " + server.socket().getLocalPort());
+                while (true) {
+                    try (SocketChannel client = server.accept()) {
+                        client.socket().setTcpNoDelay(true);
+                        bridge.serve(client, client);
+                    } catch (IOException | RuntimeException e) {
+                        // Only this trainer's session ends; the bridge keeps listening
+                        System.err.println("Bridge error: " + e);
+                    }
+                }
+            }
+        }
+    }
+}